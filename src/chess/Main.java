@@ -1,13 +1,48 @@
 package chess;
 
+import chess.engine.OpeningBook;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
 import chess.ui.ChessGUI;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class Main {
+    /**
+     * Optional arguments: an opening book file (see chess.engine.BookBuilder)
+     * and/or a directory of endgame tables (see chess.tablebase.TablebaseGenerator).
+     * A "tablebases" directory in the working directory is used by default.
+     */
     public static void main(String[] args) {
+        OpeningBook book = null;
+        Path tables = Path.of(TablebaseGenerator.DEFAULT_DIRECTORY);
+        for (String arg : args) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                tables = path;
+                continue;
+            }
+            try {
+                book = OpeningBook.open(path);
+            } catch (IOException e) {
+                System.err.println("Opening book not loaded: " + e.getMessage());
+            }
+        }
+        Tablebase tablebase = null;
+        if (Files.isDirectory(tables)) {
+            try {
+                tablebase = Tablebase.open(tables);
+            } catch (IOException e) {
+                System.err.println("Tablebases not loaded: " + e.getMessage());
+            }
+        }
+        final OpeningBook openingBook = book;
+        final Tablebase endgameTables = tablebase;
         SwingUtilities.invokeLater(() -> {
-            ChessGUI gui = new ChessGUI();
+            ChessGUI gui = new ChessGUI(openingBook, endgameTables);
             gui.show();
         });
     }
@@ -0,0 +1,399 @@
+package chess;
+
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.SmpSearch;
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Universal Chess Interface front end, so the engine can be run from chess GUIs
+ * and match tools. Commands are read on the main thread while searches run on a
+ * thread of their own, so {@code stop} and {@code isready} are answered at once
+ * even in the middle of a search. Each completed iteration is reported as an
+ * {@code info} line with depth, score, nodes, nps and PV, and a nodes/nps line
+ * follows every second in between.
+ *
+ * {@code position ... moves ...} keeps the board it built last time: when the
+ * new move list extends the previous one with the same starting position, only
+ * the new moves are applied, so a GUI resending the whole game every move does
+ * not cost a replay from scratch.
+ *
+ * Usage: {@code java -cp out chess.Uci}; a {@code tablebases} directory in the
+ * working directory is used if present.
+ */
+public final class Uci implements AutoCloseable {
+    private static final String NAME = "ChessGame";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+    /** Moves left assumed when the GUI sends no movestogo. */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /** Time kept back from every move for the GUI and the pipe. */
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final long INFO_INTERVAL_MILLIS = 1000;
+
+    private final PrintStream out;
+    private final Tablebase tablebase;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "uci-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService infoThread = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "uci-info");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int hashMegabytes = Search.DEFAULT_HASH_MB;
+    private int threads = 1;
+    private SmpSearch search;
+    private Future<?> running;
+    private CountDownLatch stopSignal;
+
+    // the position as last set up: where it started and the moves applied to it
+    private Board board = Board.fromFen(Board.START_FEN);
+    private String positionStart = Board.START_FEN;
+    private final List<String> positionMoves = new ArrayList<>();
+    private final MoveList legal = new MoveList();
+
+    public Uci(PrintStream out, Tablebase tablebase) {
+        this.out = out;
+        this.tablebase = tablebase;
+    }
+
+    /** Handles one command line; returns false after {@code quit}. */
+    public boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        try {
+            switch (tokens[0]) {
+                case "uci":
+                    send("id name " + NAME);
+                    send("id author SleepyStack");
+                    send("option name Hash type spin default " + Search.DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name Clear Hash type button");
+                    send("uciok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "setoption":
+                    stopAndWait();
+                    setOption(tokens);
+                    break;
+                case "ucinewgame":
+                    stopAndWait();
+                    if (search != null) search.transpositionTable().clear();
+                    break;
+                case "position":
+                    stopAndWait();
+                    position(tokens);
+                    break;
+                case "go":
+                    stopAndWait();
+                    go(tokens);
+                    break;
+                case "stop":
+                    stop();
+                    break;
+                case "quit":
+                    stopAndWait();
+                    return false;
+                case "":
+                    break;
+                default:
+                    send("info string unknown command: " + tokens[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        int name = indexOf(tokens, "name"), value = indexOf(tokens, "value");
+        if (name < 0) throw new IllegalArgumentException("setoption needs a name");
+        String option = String.join(" ", Arrays.copyOfRange(tokens, name + 1, value < 0 ? tokens.length : value));
+        switch (option.toLowerCase()) {
+            case "hash":
+                hashMegabytes = clamp(intValue(tokens, value), 1, MAX_HASH_MB);
+                closeSearch();
+                break;
+            case "threads":
+                threads = clamp(intValue(tokens, value), 1, MAX_THREADS);
+                closeSearch();
+                break;
+            case "clear hash":
+                if (search != null) search.transpositionTable().clear();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + option);
+        }
+    }
+
+    /**
+     * {@code position startpos|fen <fen> [moves ...]}. Continues from the
+     * current board when the start is unchanged and the move list only grows;
+     * otherwise sets up the start again. An illegal move and everything after it
+     * is ignored.
+     */
+    private void position(String[] tokens) {
+        if (tokens.length < 2) throw new IllegalArgumentException("position needs startpos or fen");
+        int movesAt = indexOf(tokens, "moves");
+        int end = movesAt < 0 ? tokens.length : movesAt;
+        String start;
+        if (tokens[1].equals("startpos")) {
+            start = Board.START_FEN;
+        } else if (tokens[1].equals("fen")) {
+            start = String.join(" ", Arrays.copyOfRange(tokens, 2, end));
+        } else {
+            throw new IllegalArgumentException("position needs startpos or fen");
+        }
+        List<String> moves = movesAt < 0 ? List.of() : Arrays.asList(tokens).subList(movesAt + 1, tokens.length);
+
+        boolean continues = start.equals(positionStart) && moves.size() >= positionMoves.size()
+                && moves.subList(0, positionMoves.size()).equals(positionMoves);
+        if (!continues) {
+            Board fresh = Board.fromFen(start); // throws before anything changes if the FEN is bad
+            board = fresh;
+            positionStart = start;
+            positionMoves.clear();
+        }
+        for (int i = positionMoves.size(); i < moves.size(); i++) {
+            String text = moves.get(i);
+            if (!applyMove(text)) {
+                send("info string illegal move " + text + "; ignoring it and the moves after it");
+                break;
+            }
+            positionMoves.add(text);
+        }
+    }
+
+    private boolean applyMove(String text) {
+        Move m;
+        try {
+            m = Move.fromLongAlgebraic(text);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        MoveGenerator.legalMoves(board, board.sideToMove(), legal);
+        if (legal.indexOf(m.code()) < 0) return false;
+        board.applyMove(m);
+        return true;
+    }
+
+    /** {@code go [depth n] [nodes n] [movetime ms] [wtime ms btime ms [winc ms binc ms] [movestogo n]] [infinite]}. */
+    private void go(String[] tokens) {
+        int depth = SearchLimits.MAX_DEPTH;
+        long nodes = Long.MAX_VALUE, moveTime = Long.MAX_VALUE;
+        long wtime = -1, btime = -1, winc = 0, binc = 0;
+        int movesToGo = 0;
+        boolean infinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "depth": depth = intValue(tokens, i++); break;
+                case "nodes": nodes = longValue(tokens, i++); break;
+                case "movetime": moveTime = longValue(tokens, i++); break;
+                case "wtime": wtime = longValue(tokens, i++); break;
+                case "btime": btime = longValue(tokens, i++); break;
+                case "winc": winc = longValue(tokens, i++); break;
+                case "binc": binc = longValue(tokens, i++); break;
+                case "movestogo": movesToGo = intValue(tokens, i++); break;
+                case "infinite": infinite = true; break;
+                default: break; // ponder, searchmoves and mate are not supported
+            }
+        }
+        boolean white = board.sideToMove() == Color.WHITE;
+        long remaining = white ? wtime : btime;
+        if (remaining >= 0 && !infinite) {
+            moveTime = Math.min(moveTime, allocateTime(remaining, white ? winc : binc, movesToGo));
+        }
+        startSearch(new SearchLimits(depth, nodes, moveTime), infinite);
+    }
+
+    /** Milliseconds to spend on this move out of {@code remaining} on the clock. */
+    private static long allocateTime(long remaining, long increment, int movesToGo) {
+        long share = remaining / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+        return Math.max(1, Math.min(share, remaining - MOVE_OVERHEAD_MILLIS));
+    }
+
+    private void startSearch(SearchLimits limits, boolean infinite) {
+        if (search == null) {
+            search = new SmpSearch(threads, hashMegabytes);
+            search.setTablebase(tablebase);
+        }
+        SmpSearch s = search;
+        CountDownLatch stopped = new CountDownLatch(1);
+        stopSignal = stopped;
+        Board position = board.clone();
+        long start = System.nanoTime();
+        s.setListener(this::sendIteration);
+        ScheduledFuture<?> progress = infoThread.scheduleAtFixedRate(() -> {
+            long millis = (System.nanoTime() - start) / 1_000_000L;
+            long nodes = s.nodes();
+            send("info nodes " + nodes + " nps " + nodes * 1000 / Math.max(1, millis) + " time " + millis
+                    + " hashfull " + s.transpositionTable().hashfull());
+        }, INFO_INTERVAL_MILLIS, INFO_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        s.resetStop(); // before submitting: a "stop" that beats the search thread must still count
+        running = searchThread.submit(() -> {
+            SearchResult result = null;
+            try {
+                result = s.search(position, limits);
+            } catch (RuntimeException e) {
+                send("info string search failed: " + e);
+            } finally {
+                progress.cancel(false);
+            }
+            // "go infinite" must not answer before "stop", even if the search ran out of depth
+            if (infinite) awaitUninterruptibly(stopped);
+            if (result != null) sendBestMove(result);
+            else sendFallbackMove(position);
+        });
+    }
+
+    /** The GUI is waiting for a bestmove whatever happened: any legal move, or 0000 if there is none. */
+    private void sendFallbackMove(Board position) {
+        MoveList moves = new MoveList();
+        MoveGenerator.legalMoves(position, position.sideToMove(), moves);
+        send("bestmove " + (moves.isEmpty() ? "0000" : Move.toLongAlgebraic(moves.get(0))));
+    }
+
+    private void sendIteration(SearchResult info) {
+        StringBuilder sb = new StringBuilder("info depth ").append(info.depth)
+                .append(info.isMateScore() ? " score mate " + info.mateIn() : " score cp " + info.score)
+                .append(" nodes ").append(info.nodes)
+                .append(" nps ").append(info.nodesPerSecond())
+                .append(" time ").append(info.elapsedMillis)
+                .append(" pv");
+        for (Move m : info.pv) sb.append(' ').append(m.toLongAlgebraic());
+        send(sb.toString());
+    }
+
+    private void sendBestMove(SearchResult result) {
+        if (result.bestMove == null) {
+            send("bestmove 0000");
+        } else if (result.pv.size() > 1) {
+            send("bestmove " + result.bestMove.toLongAlgebraic() + " ponder " + result.pv.get(1).toLongAlgebraic());
+        } else {
+            send("bestmove " + result.bestMove.toLongAlgebraic());
+        }
+    }
+
+    private void stop() {
+        if (search != null) search.stop();
+        if (stopSignal != null) stopSignal.countDown();
+    }
+
+    /** Stops the running search, if any, and waits until it has sent its bestmove. */
+    private void stopAndWait() {
+        if (running == null) return;
+        stop();
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string search failed: " + e.getCause());
+        }
+        running = null;
+    }
+
+    private void closeSearch() {
+        if (search != null) search.close();
+        search = null;
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // keep waiting; only "stop" or "quit" ends an infinite search
+            }
+        }
+    }
+
+    private static int indexOf(String[] tokens, String token) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals(token)) return i;
+        }
+        return -1;
+    }
+
+    private static long longValue(String[] tokens, int keyAt) {
+        if (keyAt < 0 || keyAt + 1 >= tokens.length) {
+            throw new IllegalArgumentException("Missing value" + (keyAt < 0 ? "" : " for " + tokens[keyAt]));
+        }
+        try {
+            return Long.parseLong(tokens[keyAt + 1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number for " + tokens[keyAt] + ": " + tokens[keyAt + 1]);
+        }
+    }
+
+    private static int intValue(String[] tokens, int keyAt) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, longValue(tokens, keyAt)));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public void close() {
+        stopAndWait();
+        closeSearch();
+        searchThread.shutdownNow();
+        infoThread.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Tablebase tablebase = null;
+        Path tables = Path.of(TablebaseGenerator.DEFAULT_DIRECTORY);
+        if (Files.isDirectory(tables)) {
+            try {
+                tablebase = Tablebase.open(tables);
+            } catch (IOException e) {
+                System.err.println("Tablebases not loaded: " + e.getMessage());
+            }
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        try (Uci uci = new Uci(System.out, tablebase)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!uci.handle(line)) break;
+            }
+        }
+    }
+}
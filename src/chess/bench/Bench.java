@@ -0,0 +1,138 @@
+package chess.bench;
+
+import chess.engine.Evaluator;
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.GameState;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Microbenchmarks for the hot paths in {@code chess.model} and the evaluation. Each benchmark is
+ * warmed up, then timed over several iterations; the report shows operations
+ * per second and bytes allocated per operation (from the per-thread allocation
+ * counter, the same source the JMH gc profiler reads).
+ *
+ * Usage: {@code java -cp out chess.bench.Bench [nameFilter]}
+ */
+public final class Bench {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 500_000_000L;
+
+    /** Italian game after 6 moves: both sides developed, castling available. */
+    static final String[] MIDDLEGAME = {
+            "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "c2c3", "g8f6", "d2d3", "d7d6", "e1g1", "e8g8"
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<String> names = new ArrayList<>();
+    private final List<LongSupplier> ops = new ArrayList<>();
+    private long sink;
+
+    private Bench() {}
+
+    private void add(String name, LongSupplier op) {
+        names.add(name);
+        ops.add(op);
+    }
+
+    private void run(String filter) {
+        System.out.printf("%-32s %16s %12s%n", "benchmark", "ops/s", "B/op");
+        for (int i = 0; i < names.size(); i++) {
+            if (filter != null && !names.get(i).contains(filter)) continue;
+            LongSupplier op = ops.get(i);
+            for (int w = 0; w < WARMUP_ITERATIONS; w++) iterate(op);
+            double bestRate = 0, bytesPerOp = 0;
+            for (int m = 0; m < MEASURE_ITERATIONS; m++) {
+                double[] r = iterate(op);
+                if (r[0] > bestRate) {
+                    bestRate = r[0];
+                    bytesPerOp = r[1];
+                }
+            }
+            System.out.printf("%-32s %,16.0f %12.1f%n", names.get(i), bestRate, bytesPerOp);
+        }
+        if (sink == 42) System.out.println(); // keep results alive
+    }
+
+    /** Runs the op for one iteration; returns {ops per second, bytes per op}. */
+    private double[] iterate(LongSupplier op) {
+        long tid = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        long count = 0, elapsed;
+        do {
+            for (int k = 0; k < 64; k++) sink += op.getAsLong();
+            count += 64;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        long bytes = THREADS.getThreadAllocatedBytes(tid) - bytesBefore;
+        return new double[]{count * 1e9 / elapsed, (double) bytes / count};
+    }
+
+    public static void main(String[] args) {
+        Bench bench = new Bench();
+
+        Board start = new Board();
+        Board middle = new Board();
+        Color middleToMove = Perft.play(middle, MIDDLEGAME);
+        List<Move> line = new ArrayList<>();
+        for (String text : MIDDLEGAME) line.add(Move.fromLongAlgebraic(text));
+
+        bench.add("legalMoves/startpos", () -> MoveGenerator.legalMoves(start, Color.WHITE).size());
+        bench.add("legalMoves/middlegame", () -> MoveGenerator.legalMoves(middle, middleToMove).size());
+        MoveList list = new MoveList();
+        bench.add("legalMoves(MoveList)/middlegame", () -> {
+            MoveGenerator.legalMoves(middle, middleToMove, list);
+            return list.size();
+        });
+        bench.add("isSquareAttacked/64sq", () -> {
+            long n = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                if (middle.isSquareAttacked(sq, Color.WHITE)) n++;
+                if (middle.isSquareAttacked(sq, Color.BLACK)) n++;
+            }
+            return n;
+        });
+        bench.add("Board.clone", () -> middle.clone().occupancy());
+        bench.add("GameState.makeMove/12ply", () -> {
+            GameState state = new GameState();
+            long n = 0;
+            for (Move m : line) if (state.makeMove(m)) n++;
+            return n;
+        });
+        bench.add("GameState.makeMove+status/12ply", () -> {
+            GameState state = new GameState();
+            long n = 0;
+            for (Move m : line) {
+                if (state.makeMove(m)) n++;
+                n += state.status().ordinal() + state.legalMoves().size();
+            }
+            return n;
+        });
+        bench.add("perft3/startpos (x8902 nodes)", () -> Perft.perft(start, Color.WHITE, 3));
+        bench.add("evaluate/middlegame", () -> Evaluator.evaluate(middle));
+        bench.add("evaluateFromScratch/middlegame", () -> Evaluator.evaluateFromScratch(middle));
+        bench.add("makeMove+unmakeMove/middlegame", () -> {
+            MoveGenerator.legalMoves(middle, middleToMove, list);
+            long n = 0;
+            for (int i = 0; i < list.size(); i++) {
+                middle.makeMove(list.get(i));
+                n += middle.midgameScore();
+                middle.unmakeMove();
+            }
+            return n;
+        });
+
+        bench.run(args.length > 0 ? args[0] : null);
+    }
+}
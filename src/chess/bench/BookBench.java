@@ -0,0 +1,99 @@
+package chess.bench;
+
+import chess.engine.BookBuilder;
+import chess.engine.OpeningBook;
+import chess.model.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Opening book build time and lookup latency. Random games are written to a
+ * temporary PGN file and turned into a book, then {@link OpeningBook#find} is
+ * timed for keys that are in the book and keys that are not, and
+ * {@link OpeningBook#bestMove} on book positions, from one thread and from
+ * several threads sharing the same mapped book.
+ *
+ * Usage: {@code java -cp out chess.bench.BookBench [games] [threads]}
+ */
+public final class BookBench {
+    private static final int LOOKUPS = 2_000_000;
+
+    private BookBench() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Path pgn = Files.createTempFile("games", ".pgn");
+        Path bookFile = Files.createTempFile("book", ".bin");
+        try {
+            PgnBench.writeRandomGames(pgn, games);
+            long start = System.nanoTime();
+            int entries = BookBuilder.build(pgn, bookFile, 16, 1, threads);
+            System.out.printf("built %,d entries from %,d games in %.2fs%n", entries, games, (System.nanoTime() - start) / 1e9);
+
+            OpeningBook book = OpeningBook.open(bookFile);
+            Random random = new Random(5);
+            long[] hits = new long[4096], misses = new long[4096];
+            for (int i = 0; i < hits.length; i++) {
+                hits[i] = book.key(random.nextInt(book.size()));
+                misses[i] = random.nextLong();
+            }
+            List<Board> positions = bookPositions(book, random);
+
+            for (int round = 0; round < 3; round++) {
+                System.out.printf("find hit %5.0f ns | find miss %5.0f ns | bestMove %5.0f ns | %d threads: %,.0f finds/s%n",
+                        timeFinds(book, hits), timeFinds(book, misses), timeBestMove(book, positions),
+                        threads, parallelFinds(book, hits, threads));
+            }
+        } finally {
+            Files.deleteIfExists(pgn);
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    /** Positions along random walks through the book, all of which have book moves. */
+    private static List<Board> bookPositions(OpeningBook book, Random random) {
+        List<Board> out = new ArrayList<>();
+        while (out.size() < 1024) {
+            Board board = new Board();
+            for (int ply = 0; ply < 12; ply++) {
+                int move = book.randomMove(board, random);
+                if (move == 0) break;
+                out.add(board.clone());
+                board.makeMove(move);
+            }
+        }
+        return out;
+    }
+
+    private static double timeFinds(OpeningBook book, long[] keys) {
+        long sink = 0, start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) sink += book.find(keys[i & (keys.length - 1)]);
+        double ns = (System.nanoTime() - start) / (double) LOOKUPS;
+        return sink == 42 ? -ns : ns;
+    }
+
+    private static double timeBestMove(OpeningBook book, List<Board> positions) {
+        long sink = 0, start = System.nanoTime();
+        int n = LOOKUPS / 10;
+        for (int i = 0; i < n; i++) sink += book.bestMove(positions.get(i % positions.size()));
+        double ns = (System.nanoTime() - start) / (double) n;
+        return sink == 42 ? -ns : ns;
+    }
+
+    private static double parallelFinds(OpeningBook book, long[] keys, int threads) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> timeFinds(book, keys));
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        return (double) threads * LOOKUPS * 1e9 / (System.nanoTime() - start);
+    }
+}
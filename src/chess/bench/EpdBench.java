@@ -0,0 +1,97 @@
+package chess.bench;
+
+import chess.io.EpdReader;
+import chess.model.Board;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Throughput of {@link EpdReader}: positions and megabytes per second for a
+ * full parse, next to a plain {@link BufferedReader} line count as the I/O-only
+ * baseline. Without a file argument a corpus of random-game positions is
+ * written to a temporary file first.
+ *
+ * Usage: {@code java -cp out chess.bench.EpdBench [file.epd | -n positions]}
+ */
+public final class EpdBench {
+    private static final int DEFAULT_POSITIONS = 1_000_000;
+
+    private EpdBench() {}
+
+    public static void main(String[] args) throws IOException {
+        Path file;
+        boolean temporary = args.length == 0 || args[0].equals("-n");
+        if (temporary) {
+            int n = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_POSITIONS;
+            file = Files.createTempFile("positions", ".epd");
+            long start = System.nanoTime();
+            writeRandomPositions(file, n);
+            System.out.printf("wrote %,d positions (%,d bytes) in %.2fs%n",
+                    n, Files.size(file), (System.nanoTime() - start) / 1e9);
+        } else {
+            file = Path.of(args[0]);
+        }
+
+        try {
+            double mb = Files.size(file) / 1e6;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                long lines = 0;
+                try (BufferedReader in = Files.newBufferedReader(file)) {
+                    while (in.readLine() != null) lines++;
+                }
+                double lineSecs = (System.nanoTime() - start) / 1e9;
+
+                start = System.nanoTime();
+                long[] sink = new long[1];
+                long positions;
+                try (EpdReader reader = new EpdReader(file)) {
+                    positions = reader.read((board, operations, line) -> sink[0] ^= board.zobristKey());
+                }
+                double parseSecs = (System.nanoTime() - start) / 1e9;
+
+                System.out.printf("line count: %,d lines %6.0f MB/s | EpdReader: %,d positions %,12.0f pos/s %6.0f MB/s%s%n",
+                        lines, mb / lineSecs, positions, positions / parseSecs, mb / parseSecs,
+                        sink[0] == 42 ? " " : "");
+            }
+        } finally {
+            if (temporary) Files.deleteIfExists(file);
+        }
+    }
+
+    /** Positions from random legal games, as EPD lines with an id operation. */
+    private static void writeRandomPositions(Path file, int count) throws IOException {
+        Random random = new Random(7);
+        MoveList moves = new MoveList();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            Board board = new Board();
+            for (int i = 0; i < count; i++) {
+                MoveGenerator.legalMoves(board, board.sideToMove(), moves);
+                if (moves.isEmpty() || board.fullmoveNumber() > 80) {
+                    board = new Board();
+                    MoveGenerator.legalMoves(board, board.sideToMove(), moves);
+                }
+                board.makeMove(moves.get(random.nextInt(moves.size())));
+                String fen = board.toFen();
+                // EPD keeps the first four FEN fields; the counters become operations
+                int fourth = nthSpace(fen, 4);
+                out.write(fen, 0, fourth);
+                out.write(" hmvc " + board.halfmoveClock() + "; id \"" + i + "\";");
+                out.newLine();
+            }
+        }
+    }
+
+    private static int nthSpace(String s, int n) {
+        int i = -1;
+        for (int k = 0; k < n; k++) i = s.indexOf(' ', i + 1);
+        return i;
+    }
+}
@@ -0,0 +1,121 @@
+package chess.bench;
+
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft split across a {@link ForkJoinPool}. The root moves (and optionally the
+ * replies to them) become tasks; every task works on its own {@link Board} copy,
+ * so workers never share mutable state and the counts are identical to
+ * {@link Perft#perft}. Splitting the second ply as well gives ~400 tasks from the
+ * start position, which keeps many cores busy when root subtrees differ in size.
+ *
+ * Usage: {@code java -cp out chess.bench.ParallelPerft <depth> [threads] [splitPlies] [verify]}
+ * runs divide on the start position; {@code verify} re-runs it serially and compares.
+ */
+public final class ParallelPerft {
+
+    private ParallelPerft() {}
+
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final Color toMove;
+        private final int depth;
+        private final int splitPlies;
+
+        PerftTask(Board board, Color toMove, int depth, int splitPlies) {
+            this.board = board;
+            this.toMove = toMove;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies == 0 || depth <= 1) return Perft.perft(board, toMove, depth);
+            List<PerftTask> children = new ArrayList<>();
+            for (Move m : MoveGenerator.legalMoves(board, toMove)) {
+                children.add(child(board, m, toMove, depth, splitPlies));
+            }
+            invokeAll(children);
+            long nodes = 0;
+            for (PerftTask t : children) nodes += t.join();
+            return nodes;
+        }
+    }
+
+    private static PerftTask child(Board board, Move m, Color toMove, int depth, int splitPlies) {
+        Board copy = board.clone();
+        copy.applyMove(m);
+        return new PerftTask(copy, toMove.opposite(), depth - 1, splitPlies - 1);
+    }
+
+    /**
+     * Per-root-move counts in generation order, computed on {@code pool}.
+     * {@code splitPlies} is how many plies below the root are turned into tasks (1 or 2).
+     */
+    public static Map<Move, Long> divide(ForkJoinPool pool, Board board, Color toMove, int depth, int splitPlies) {
+        if (depth < 1) throw new IllegalArgumentException("depth must be at least 1");
+        List<Move> moves = MoveGenerator.legalMoves(board, toMove);
+        List<PerftTask> tasks = new ArrayList<>(moves.size());
+        for (Move m : moves) tasks.add(child(board, m, toMove, depth, splitPlies));
+        for (PerftTask t : tasks) pool.execute(t);
+        Map<Move, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) counts.put(moves.get(i), tasks.get(i).join());
+        return counts;
+    }
+
+    public static long perft(ForkJoinPool pool, Board board, Color toMove, int depth, int splitPlies) {
+        if (depth == 0) return 1;
+        long nodes = 0;
+        for (long n : divide(pool, board, toMove, depth, splitPlies).values()) nodes += n;
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int splitPlies = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        boolean verify = args.length > 3 && args[3].equals("verify");
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Map<Move, Long> counts = divide(pool, new Board(), Color.WHITE, depth, splitPlies);
+            double secs = (System.nanoTime() - start) / 1e9;
+            long total = 0;
+            for (Map.Entry<Move, Long> e : counts.entrySet()) {
+                System.out.println(e.getKey().toLongAlgebraic() + ": " + e.getValue());
+                total += e.getValue();
+            }
+            System.out.println();
+            System.out.println("Nodes searched: " + total);
+            System.out.printf("Threads: %d, split plies: %d, %.3fs, %,.0f nodes/s%n",
+                    threads, splitPlies, secs, total / Math.max(secs, 1e-9));
+
+            if (verify) {
+                long serialStart = System.nanoTime();
+                long serial = Perft.perft(new Board(), Color.WHITE, depth);
+                double serialSecs = (System.nanoTime() - serialStart) / 1e9;
+                System.out.printf("Serial: %d nodes, %.3fs, speedup %.2fx%n", serial, serialSecs, serialSecs / secs);
+                if (serial != total) {
+                    System.out.println("MISMATCH between parallel and serial perft");
+                    System.exit(1);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
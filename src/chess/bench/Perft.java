@@ -0,0 +1,136 @@
+package chess.bench;
+
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth and
+ * compares them with published figures, which validates move generation and
+ * make/unmake. {@code divide} prints the count below each root move so a
+ * mismatch can be narrowed down against another engine.
+ *
+ * Usage: {@code java -cp out chess.bench.Perft [maxDepth]} runs the suite,
+ * {@code java -cp out chess.bench.Perft divide <depth> ["<fen>"] [moves...]}
+ * divides the position reached by the given coordinate moves from the FEN
+ * (default: the start position).
+ */
+public final class Perft {
+
+    /** A position with its known perft counts, index 0 being depth 1. */
+    static final class Case {
+        final String name;
+        final String fen;
+        final long[] expected;
+
+        Case(String name, String fen, long... expected) {
+            this.name = name;
+            this.fen = fen;
+            this.expected = expected;
+        }
+    }
+
+    // The standard positions from the Chess Programming Wiki "Perft Results" page.
+    static final Case[] SUITE = {
+            new Case("startpos", Board.START_FEN, 20, 400, 8902, 197281, 4865609, 119060324),
+            new Case("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603),
+            new Case("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624, 11030083),
+            new Case("position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333, 15833292),
+            new Case("position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487),
+            new Case("position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594),
+    };
+
+    private Perft() {}
+
+    public static long perft(Board board, Color toMove, int depth) {
+        if (depth == 0) return 1;
+        MoveList[] lists = new MoveList[depth];
+        for (int i = 0; i < depth; i++) lists[i] = new MoveList();
+        return perft(board, toMove, depth, lists);
+    }
+
+    // one move list per remaining depth: nothing is allocated inside the tree walk
+    private static long perft(Board board, Color toMove, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth - 1];
+        MoveGenerator.legalMoves(board, toMove, moves);
+        if (depth == 1) return moves.size();
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, toMove.opposite(), depth - 1, lists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static Map<Move, Long> divide(Board board, Color toMove, int depth) {
+        Map<Move, Long> counts = new LinkedHashMap<>();
+        for (Move m : MoveGenerator.legalMoves(board, toMove)) {
+            board.makeMove(m);
+            counts.put(m, perft(board, toMove.opposite(), depth - 1));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    /** Plays coordinate moves on the board; returns the side to move afterwards. */
+    static Color play(Board board, String... moves) {
+        Color toMove = board.sideToMove();
+        for (String text : moves) {
+            board.applyMove(Move.fromLongAlgebraic(text));
+            toMove = toMove.opposite();
+        }
+        return toMove;
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("divide")) {
+            int depth = Integer.parseInt(args[1]);
+            int first = 2;
+            Board board = new Board();
+            if (args.length > 2 && args[2].indexOf('/') >= 0) {
+                board = Board.fromFen(args[2]);
+                first = 3;
+            }
+            String[] moves = new String[args.length - first];
+            System.arraycopy(args, first, moves, 0, moves.length);
+            Color toMove = play(board, moves);
+            long total = 0;
+            for (Map.Entry<Move, Long> e : divide(board, toMove, depth).entrySet()) {
+                System.out.println(e.getKey().toLongAlgebraic() + ": " + e.getValue());
+                total += e.getValue();
+            }
+            System.out.println();
+            System.out.println("Nodes searched: " + total);
+            return;
+        }
+
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        boolean ok = true;
+        for (Case c : SUITE) {
+            for (int d = 1; d <= Math.min(maxDepth, c.expected.length); d++) {
+                Board board = Board.fromFen(c.fen);
+                Color toMove = board.sideToMove();
+                long start = System.nanoTime();
+                long nodes = perft(board, toMove, d);
+                double secs = (System.nanoTime() - start) / 1e9;
+                boolean match = nodes == c.expected[d - 1];
+                ok &= match;
+                System.out.printf("%-10s depth %d: %12d %s  %8.3fs  %,12.0f nodes/s%n",
+                        c.name, d, nodes, match ? "ok" : "FAIL (expected " + c.expected[d - 1] + ")",
+                        secs, nodes / Math.max(secs, 1e-9));
+            }
+        }
+        if (!ok) System.exit(1);
+    }
+}
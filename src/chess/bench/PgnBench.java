@@ -0,0 +1,110 @@
+package chess.bench;
+
+import chess.io.PgnReplay;
+import chess.model.Board;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+import chess.model.San;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Throughput of {@link PgnReplay}: games per second replayed on one thread and
+ * on all of them. Without a file argument a database of random legal games is
+ * written to a temporary file first, with the comments, variations and
+ * annotation glyphs real databases contain.
+ *
+ * Usage: {@code java -cp out chess.bench.PgnBench [file.pgn | -n games] [threads]}
+ */
+public final class PgnBench {
+    private static final int DEFAULT_GAMES = 100_000;
+    private static final int MAX_PLIES = 160;
+
+    private PgnBench() {}
+
+    public static void main(String[] args) throws IOException {
+        Path file;
+        boolean temporary = args.length == 0 || args[0].equals("-n");
+        int next = 1;
+        if (temporary) {
+            int n = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+            next = 2;
+            file = Files.createTempFile("games", ".pgn");
+            long start = System.nanoTime();
+            writeRandomGames(file, n);
+            System.out.printf("wrote %,d games (%,d bytes) in %.2fs%n",
+                    n, Files.size(file), (System.nanoTime() - start) / 1e9);
+        } else {
+            file = Path.of(args[0]);
+        }
+        int threads = args.length > next ? Integer.parseInt(args[next]) : Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int round = 0; round < 3; round++) {
+                for (int t : threads == 1 ? new int[]{1} : new int[]{1, threads}) {
+                    PgnReplay.Summary s = PgnReplay.replay(file, t, (game, offset, ply, message) ->
+                            System.out.printf("game %d, ply %d: %s%n", game, ply, message));
+                    System.out.printf("%2d threads: %s%n", t, s);
+                }
+            }
+        } finally {
+            if (temporary) Files.deleteIfExists(file);
+        }
+    }
+
+    /** Random legal games in SAN, sometimes with a comment, a NAG or a one-move variation. */
+    static void writeRandomGames(Path file, int count) throws IOException {
+        Random random = new Random(11);
+        MoveList moves = new MoveList();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int g = 1; g <= count; g++) {
+                Board board = new Board();
+                StringBuilder text = new StringBuilder();
+                String result = "*";
+                for (int ply = 0; ply < MAX_PLIES; ply++) {
+                    MoveGenerator.legalMoves(board, board.sideToMove(), moves);
+                    if (moves.isEmpty()) {
+                        if (board.isKingInCheck(board.sideToMove())) result = ply % 2 == 0 ? "0-1" : "1-0";
+                        else result = "1/2-1/2";
+                        break;
+                    }
+                    int move = moves.get(random.nextInt(moves.size()));
+                    if (ply % 2 == 0) text.append(ply / 2 + 1).append(". ");
+                    text.append(San.format(board, moves, move)).append(' ');
+                    int extra = random.nextInt(40);
+                    if (extra == 0) text.append("{a comment (with [brackets])} ");
+                    else if (extra == 1) text.append("$1 ");
+                    else if (extra == 2 && moves.size() > 1) {
+                        int alternative = moves.get(moves.get(0) == move ? 1 : 0);
+                        text.append("(").append(ply / 2 + 1).append(ply % 2 == 0 ? ". " : "... ")
+                                .append(San.format(board, moves, alternative)).append(") ");
+                    }
+                    board.makeMove(move);
+                    if (board.halfmoveClock() >= 100) {
+                        result = "1/2-1/2";
+                        break;
+                    }
+                }
+                out.write("[Event \"Random game " + g + "\"]\n[Site \"?\"]\n[Result \"" + result + "\"]\n\n");
+                // wrap the movetext at about 80 columns, as most databases do
+                int column = 0;
+                for (String token : text.append(result).toString().split(" ")) {
+                    if (column + token.length() + 1 > 80) {
+                        out.newLine();
+                        column = 0;
+                    } else if (column > 0) {
+                        out.write(' ');
+                        column++;
+                    }
+                    out.write(token);
+                    column += token.length();
+                }
+                out.write("\n\n");
+            }
+        }
+    }
+}
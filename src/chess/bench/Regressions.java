@@ -0,0 +1,111 @@
+package chess.bench;
+
+import chess.Uci;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.model.Board;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Checks for bugs that were fixed once and must stay fixed. Each check prints
+ * ok or FAIL, and the exit status is 1 if any failed.
+ *
+ * Usage: {@code java -cp out chess.bench.Regressions}
+ */
+public final class Regressions {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private int failures;
+
+    private Regressions() {}
+
+    private void check(String name, boolean passed) {
+        System.out.println((passed ? "ok    " : "FAIL  ") + name);
+        if (!passed) failures++;
+    }
+
+    /** "go infinite" immediately followed by "stop" must still answer with a bestmove. */
+    private void uciStopRightAfterGo() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (Uci uci = new Uci(new PrintStream(bytes, true, StandardCharsets.US_ASCII), null)) {
+                uci.handle("go infinite");
+                uci.handle("stop");
+                long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                while (!bytes.toString(StandardCharsets.US_ASCII).contains("bestmove")
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                if (!bytes.toString(StandardCharsets.US_ASCII).contains("bestmove")) {
+                    check("uci: stop right after go infinite (round " + round + ")", false);
+                    return;
+                }
+            }
+        }
+        check("uci: stop right after go infinite", true);
+    }
+
+    /** Three pieces without a king on each side, or with a pawn on the first or last rank, must not be looked up. */
+    private void tablebaseKinglessProbe() throws IOException {
+        Path dir = Files.createTempDirectory("tablebases");
+        try {
+            TablebaseGenerator.generate(dir, Runtime.getRuntime().availableProcessors());
+            Tablebase tb = Tablebase.open(dir);
+            String[] fens = {"8/8/8/8/8/8/8/KQ5r w - - 0 1", "8/8/8/3k4/8/8/8/QQ6 w - - 0 1",
+                    "P7/8/8/8/8/8/8/K6k w - - 0 1", "8/8/8/8/8/8/8/K5kp b - - 0 1", "8/8/8/8/8/8/8/K5kP w - - 0 1"};
+            boolean passed = true;
+            for (String fen : fens) {
+                try {
+                    Search search = new Search();
+                    search.setTablebase(tb);
+                    search.search(Board.fromFen(fen), SearchLimits.depth(2));
+                    passed &= tb.probe(Board.fromFen(fen)) == Tablebase.NOT_FOUND;
+                } catch (RuntimeException e) {
+                    passed = false;
+                }
+            }
+            check("tablebase: probe without a king or with a pawn on a back rank", passed);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+            }
+        }
+    }
+
+    /** A FEN may set up more moves than MoveList's initial capacity; generating and searching them must work. */
+    private void moreMovesThanCapacity() {
+        Board board = Board.fromFen("1R4Q1/Q1QQ4/Q4Q1Q/Q6Q/4Q3/Q6Q/Q6Q/K1QQQQQk w - - 0 1");
+        MoveList moves = new MoveList();
+        boolean passed;
+        try {
+            MoveGenerator.legalMoves(board, board.sideToMove(), moves);
+            passed = moves.size() == 257 && new Search().search(board, SearchLimits.depth(2)).bestMove != null;
+        } catch (RuntimeException e) {
+            passed = false;
+        }
+        check("movelist: more than " + MoveList.CAPACITY + " legal moves", passed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Regressions r = new Regressions();
+        r.uciStopRightAfterGo();
+        r.tablebaseKinglessProbe();
+        r.moreMovesThanCapacity();
+        if (r.failures > 0) {
+            System.out.println(r.failures + " check(s) failed");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package chess.bench;
+
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.model.Board;
+
+/**
+ * Runs the engine on a few fixed positions and reports the depth reached,
+ * nodes and nodes/sec for each iteration, plus transposition table statistics
+ * and how often a cutoff came from the first move searched.
+ *
+ * Usage: {@code java -cp out chess.bench.SearchBench [millisPerPosition]}
+ */
+public final class SearchBench {
+
+    private SearchBench() {}
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        Board start = new Board();
+        Board middle = new Board();
+        Perft.play(middle, Bench.MIDDLEGAME);
+
+        long totalNodes = 0, totalMillis = 0;
+        for (Board position : new Board[]{start, middle}) {
+            Search search = new Search();
+            search.setListener(info -> System.out.println("  info " + info));
+            SearchResult result = search.search(position, SearchLimits.moveTime(millis));
+            System.out.println("bestmove " + result.bestMove.toLongAlgebraic() + "  (" + result + ")");
+            System.out.println("  " + search.transpositionTable());
+            System.out.printf("  cutoffs: %,d, on the first move %.1f%%%n",
+                    search.cutoffs(), 100 * search.firstMoveCutoffRate());
+            totalNodes += result.nodes;
+            totalMillis += result.elapsedMillis;
+        }
+        System.out.printf("total: %,d nodes in %d ms, %,d nodes/s%n",
+                totalNodes, totalMillis, totalNodes * 1000 / Math.max(1, totalMillis));
+    }
+}
@@ -0,0 +1,58 @@
+package chess.bench;
+
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.SmpSearch;
+import chess.model.Board;
+
+/**
+ * Lazy SMP speedup: searches a fixed set of positions to a fixed depth with one
+ * thread and with N threads and compares the time to reach that depth.
+ *
+ * Usage: {@code java -cp out chess.bench.SmpBench [threads] [depth] [hashMB]}
+ */
+public final class SmpBench {
+
+    /** Coordinate move sequences from the initial position. */
+    static final String[][] POSITIONS = {
+            {},
+            Bench.MIDDLEGAME,
+            {"d2d4", "d7d5", "c2c4", "e7e6", "b1c3", "g8f6", "c1g5", "f8e7"},
+            {"e2e4", "c7c5", "g1f3", "d7d6", "d2d4", "c5d4", "f3d4", "g8f6", "b1c3", "a7a6"},
+            {"e2e4", "e7e6", "d2d4", "d7d5", "b1c3", "f8b4", "e4e5", "c7c5", "a2a3", "b4c3", "b2c3"},
+    };
+
+    private SmpBench() {}
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        double single = run(1, depth, hashMb);
+        double multi = run(threads, depth, hashMb);
+        System.out.printf("time-to-depth %d: 1 thread %.0f ms, %d threads %.0f ms, speedup %.2fx%n",
+                depth, single, threads, multi, single / multi);
+    }
+
+    private static double run(int threads, int depth, int hashMb) {
+        long totalNanos = 0, totalNodes = 0;
+        try (SmpSearch search = new SmpSearch(threads, hashMb)) {
+            for (String[] moves : POSITIONS) {
+                Board board = new Board();
+                Perft.play(board, moves);
+                search.transpositionTable().clear();
+                long start = System.nanoTime();
+                SearchResult result = search.search(board, SearchLimits.depth(depth));
+                long nanos = System.nanoTime() - start;
+                totalNanos += nanos;
+                totalNodes += result.nodes;
+                System.out.printf("threads %2d  %-6s depth %d  %8.0f ms  %,12d nodes%n",
+                        threads, result.bestMove.toLongAlgebraic(), result.depth, nanos / 1e6, result.nodes);
+            }
+        }
+        System.out.printf("threads %2d  total %.0f ms, %,d nodes/s%n",
+                threads, totalNanos / 1e6, (long) (totalNodes / (totalNanos / 1e9)));
+        return totalNanos / 1e6;
+    }
+}
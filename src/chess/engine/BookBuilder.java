@@ -0,0 +1,182 @@
+package chess.engine;
+
+import chess.io.PgnReader;
+import chess.model.GameState;
+import chess.model.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds an {@link OpeningBook} from a PGN collection. The first
+ * {@code maxPly} moves of every game are replayed on all cores and each
+ * (position, move) pair is counted; a move's weight is the number of games
+ * that played it. Pairs seen fewer than {@code minCount} times are dropped.
+ * A game with an illegal move contributes the moves before it.
+ *
+ * Usage: {@code java -cp out chess.engine.BookBuilder <games.pgn> <book.bin> [maxPly] [minCount] [threads]}
+ */
+public final class BookBuilder {
+    public static final int DEFAULT_MAX_PLY = 24;
+    public static final int DEFAULT_MIN_COUNT = 2;
+
+    private BookBuilder() {}
+
+    /** Writes the book for {@code pgn} to {@code book}; returns the number of entries. */
+    public static int build(Path pgn, Path book, int maxPly, int minCount, int threads) throws IOException {
+        List<Counts> perThread = new ArrayList<>();
+        ThreadLocal<Counts> local = ThreadLocal.withInitial(() -> {
+            Counts c = new Counts();
+            synchronized (perThread) {
+                perThread.add(c);
+            }
+            return c;
+        });
+        try (PgnReader reader = new PgnReader(pgn)) {
+            reader.read(threads, game -> {
+                Counts counts = local.get();
+                try {
+                    String fen = game.tag("FEN");
+                    GameState state = fen == null ? new GameState() : new GameState(fen);
+                    for (int ply = 0; ply < maxPly && game.nextMove(); ply++) {
+                        Move m = state.moveFromSan(game.move());
+                        counts.add(state.positionKey(), m.code(), 1);
+                        state.makeMove(m);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // keep what was read before the bad move
+                }
+            });
+        }
+
+        Counts all = new Counts();
+        for (Counts c : perThread) {
+            for (int i = 0; i < c.keys.length; i++) {
+                if (c.moves[i] != 0) all.add(c.keys[i], c.moves[i], c.counts[i]);
+            }
+        }
+        return write(all, book, minCount);
+    }
+
+    private static int write(Counts all, Path book, int minCount) throws IOException {
+        int n = 0;
+        for (int i = 0; i < all.keys.length; i++) {
+            if (all.moves[i] != 0 && all.counts[i] >= minCount) n++;
+        }
+        long[] keys = new long[n];
+        int[] moves = new int[n];
+        int[] weights = new int[n];
+        n = 0;
+        for (int i = 0; i < all.keys.length; i++) {
+            if (all.moves[i] != 0 && all.counts[i] >= minCount) {
+                keys[n] = all.keys[i];
+                moves[n] = all.moves[i];
+                weights[n] = all.counts[i];
+                n++;
+            }
+        }
+        sort(keys, moves, weights, 0, n - 1);
+
+        ByteBuffer buf = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES * 4096).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel out = FileChannel.open(book, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < n; i++) {
+                buf.putLong(keys[i]).putInt(moves[i]).putInt(weights[i]);
+                if (!buf.hasRemaining() || i == n - 1) {
+                    buf.flip();
+                    while (buf.hasRemaining()) out.write(buf);
+                    buf.clear();
+                }
+            }
+        }
+        return n;
+    }
+
+    /** Orders entries by key, then by descending weight, then by move (quicksort on the three arrays). */
+    private static void sort(long[] keys, int[] moves, int[] weights, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long pk = keys[mid];
+            int pw = weights[mid], pm = moves[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (compare(keys[i], weights[i], moves[i], pk, pw, pm) < 0) i++;
+                while (compare(keys[j], weights[j], moves[j], pk, pw, pm) > 0) j--;
+                if (i <= j) {
+                    long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+                    int m = moves[i]; moves[i] = moves[j]; moves[j] = m;
+                    int w = weights[i]; weights[i] = weights[j]; weights[j] = w;
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller half, loop on the larger one
+            if (j - lo < hi - i) {
+                sort(keys, moves, weights, lo, j);
+                lo = i;
+            } else {
+                sort(keys, moves, weights, i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private static int compare(long k1, int w1, int m1, long k2, int w2, int m2) {
+        if (k1 != k2) return Long.compare(k1, k2);
+        if (w1 != w2) return Integer.compare(w2, w1);
+        return Integer.compare(m1, m2);
+    }
+
+    /** Open-addressing counts of (key, move) pairs; move code 0 marks an empty slot. */
+    private static final class Counts {
+        long[] keys = new long[1 << 12];
+        int[] moves = new int[1 << 12];
+        int[] counts = new int[1 << 12];
+        int size;
+
+        void add(long key, int move, int count) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = (int) ((key ^ key >>> 32) * 31 + move) & mask;
+            while (moves[i] != 0 && (keys[i] != key || moves[i] != move)) i = (i + 1) & mask;
+            if (moves[i] == 0) {
+                keys[i] = key;
+                moves[i] = move;
+                size++;
+            }
+            counts[i] = (int) Math.min(Integer.MAX_VALUE, (long) counts[i] + count);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldMoves = moves, oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            moves = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldMoves[i] != 0) add(oldKeys[i], oldMoves[i], oldCounts[i]);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java chess.engine.BookBuilder <games.pgn> <book.bin> [maxPly] [minCount] [threads]");
+            System.exit(2);
+        }
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        int minCount = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MIN_COUNT;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        int entries = build(Path.of(args[0]), Path.of(args[1]), maxPly, minCount, threads);
+        System.out.printf("%,d entries (%,d bytes) in %.2fs%n",
+                entries, (long) entries * OpeningBook.ENTRY_BYTES, (System.nanoTime() - start) / 1e9);
+    }
+}
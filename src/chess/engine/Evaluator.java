@@ -0,0 +1,56 @@
+package chess.engine;
+
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Piece;
+import chess.model.PieceSquareTables;
+
+/**
+ * Static evaluation in centipawns from the point of view of the side to move (as
+ * negamax expects): material plus middlegame and endgame piece-square tables,
+ * blended by the game phase, plus a bishop pair bonus.
+ *
+ * The material and table totals are kept up to date by {@link Board} as moves
+ * are made and unmade, so {@link #evaluate} does not look at the pieces at all;
+ * {@link #evaluateFromScratch} computes the same score square by square, for
+ * verification.
+ */
+public final class Evaluator {
+    public static final int BISHOP_PAIR = 30;
+
+    private static final int MAX_PHASE = PieceSquareTables.MAX_PHASE;
+
+    private Evaluator() {}
+
+    public static int evaluate(Board board) {
+        int score = taper(board.midgameScore(), board.endgameScore(), board.phase()) + bishopPairs(board);
+        return board.sideToMove() == Color.WHITE ? score : -score;
+    }
+
+    /** {@link #evaluate} without the incremental totals: every square is looked at. */
+    public static int evaluateFromScratch(Board board) {
+        int mg = 0, eg = 0, phase = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            Piece p = board.get(sq);
+            if (p == null) continue;
+            mg += PieceSquareTables.midgame(p, sq);
+            eg += PieceSquareTables.endgame(p, sq);
+            phase += PieceSquareTables.phase(p);
+        }
+        int score = taper(mg, eg, phase) + bishopPairs(board);
+        return board.sideToMove() == Color.WHITE ? score : -score;
+    }
+
+    // promotions can push the phase past its starting value
+    private static int taper(int mg, int eg, int phase) {
+        int p = Math.min(phase, MAX_PHASE);
+        return (mg * p + eg * (MAX_PHASE - p)) / MAX_PHASE;
+    }
+
+    private static int bishopPairs(Board board) {
+        int score = 0;
+        if (Long.bitCount(board.pieces(Color.WHITE, Piece.Type.BISHOP)) >= 2) score += BISHOP_PAIR;
+        if (Long.bitCount(board.pieces(Color.BLACK, Piece.Type.BISHOP)) >= 2) score -= BISHOP_PAIR;
+        return score;
+    }
+}
@@ -0,0 +1,147 @@
+package chess.engine;
+
+import chess.model.Board;
+import chess.model.Move;
+import chess.model.MoveList;
+import chess.model.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Puts the moves most likely to cause a cutoff first. The hash move comes
+ * first, then captures and queen promotions by MVV-LVA (most valuable victim,
+ * then least valuable attacker). Next come the two killer moves of the ply and
+ * the countermove to the opponent's last move. Other quiet moves follow by
+ * their butterfly history score, and under-promotions come last.
+ *
+ * {@link #score} rates a node's moves once and {@link #next} hands them out best
+ * first by selection, so a node that cuts off after one or two moves never pays
+ * for a full sort. All tables are primitive arrays belonging to one search
+ * thread.
+ */
+final class MoveOrderer {
+    private static final int HASH_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;   // plus MVV-LVA
+    private static final int KILLER_SCORE = 1 << 27;    // plus one for the newer killer
+    private static final int COUNTER_SCORE = KILLER_SCORE - 1;
+    private static final int UNDERPROMOTION_SCORE = -1;
+    /** History scores stay below this; all are halved when one would pass it. */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private static final int QUEEN = Piece.Type.QUEEN.ordinal();
+    private static final int KING = Piece.Type.KING.ordinal();
+
+    private final int[][] scores = new int[Search.MAX_PLY + 1][MoveList.CAPACITY];
+    // move codes (see Move.code), 0 for none
+    private final int[][] killers = new int[Search.MAX_PLY + 1][2];
+    private final int[] counterMoves = new int[2 * 64 * 64];   // [side][previous from][previous to]
+    private final int[] history = new int[2 * 64 * 64];        // [side][from][to]
+
+    /** Forgets the killers, which belong to the last position searched, and ages the history. */
+    void newSearch() {
+        for (int[] k : killers) Arrays.fill(k, 0);
+        for (int i = 0; i < history.length; i++) history[i] >>= 1;
+    }
+
+    /**
+     * Scores the moves of a node at {@code ply}; {@code hashMove} and
+     * {@code previous} (the move that led here) are packed moves or 0.
+     */
+    void score(Board board, MoveList moves, int ply, int hashMove, int previous) {
+        int[] s = scores[ply];
+        if (s.length < moves.size()) s = scores[ply] = new int[moves.size()]; // a FEN with more than CAPACITY moves
+        int hashCode = hashMove == 0 ? -1 : Move.code(hashMove);
+        int side = board.sideToMove().ordinal();
+        int killer1 = killers[ply][0], killer2 = killers[ply][1];
+        int counter = previous == 0 ? 0 : counterMoves[butterfly(side ^ 1, previous)];
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            int code = Move.code(m);
+            int promotion = Move.promotion(m);
+            if (code == hashCode) {
+                s[i] = HASH_SCORE;
+            } else if (Move.isCapture(m) || promotion == QUEEN) {
+                s[i] = CAPTURE_SCORE + mvvLva(board, m);
+            } else if (promotion != 0) {
+                s[i] = UNDERPROMOTION_SCORE;
+            } else if (code == killer1) {
+                s[i] = KILLER_SCORE + 1;
+            } else if (code == killer2) {
+                s[i] = KILLER_SCORE;
+            } else if (code == counter) {
+                s[i] = COUNTER_SCORE;
+            } else {
+                s[i] = history[butterfly(side, m)];
+            }
+        }
+    }
+
+    /** Victim value times eight, less the attacker; a queen promotion counts as winning a queen. */
+    private static int mvvLva(Board board, int m) {
+        int attacker = board.get(Move.from(m)).type().ordinal();
+        Piece victim = board.get(Move.to(m));
+        int value = victim == null ? 0 : victim.type().ordinal() * 8; // en passant takes a pawn (0)
+        if (Move.promotion(m) == QUEEN) value += QUEEN * 8;
+        return value + KING - attacker;
+    }
+
+    /**
+     * Swaps the best of the moves from index {@code i} on into place {@code i}
+     * and returns it. Moves must have been {@link #score scored} for this ply.
+     */
+    int next(MoveList moves, int ply, int i) {
+        int[] s = scores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (s[j] > s[best]) best = j;
+        }
+        if (best != i) {
+            moves.swap(i, best);
+            int t = s[i];
+            s[i] = s[best];
+            s[best] = t;
+        }
+        return moves.get(i);
+    }
+
+    /**
+     * Records a beta cutoff by the quiet move at index {@code cut}: it becomes
+     * the first killer of the ply and the countermove to {@code previous}, and
+     * gains history while the quiet moves tried before it lose some.
+     */
+    void cutoff(Board board, MoveList moves, int cut, int ply, int depth, int previous) {
+        int m = moves.get(cut);
+        int code = Move.code(m);
+        int[] k = killers[ply];
+        if (k[0] != code) {
+            k[1] = k[0];
+            k[0] = code;
+        }
+        int side = board.sideToMove().ordinal();
+        if (previous != 0) counterMoves[butterfly(side ^ 1, previous)] = code;
+
+        int bonus = depth * depth;
+        addHistory(butterfly(side, m), bonus);
+        for (int i = 0; i < cut; i++) {
+            int tried = moves.get(i);
+            if (isQuiet(tried)) addHistory(butterfly(side, tried), -bonus);
+        }
+    }
+
+    static boolean isQuiet(int m) {
+        return !Move.isCapture(m) && Move.promotion(m) == 0;
+    }
+
+    private void addHistory(int index, int delta) {
+        int v = history[index] + delta;
+        if (v >= HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) history[i] >>= 1;
+            v = history[index] + delta;
+        }
+        history[index] = Math.max(0, v);
+    }
+
+    private static int butterfly(int side, int m) {
+        return (side * 64 + Move.from(m)) * 64 + Move.to(m);
+    }
+}
@@ -0,0 +1,128 @@
+package chess.engine;
+
+import chess.model.Board;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * A read-only opening book in a memory-mapped file. The file is a flat array
+ * of 16-byte little-endian entries, sorted by key (as a signed long) and then
+ * by descending weight:
+ * <pre>
+ *   long key     Zobrist key of the position ({@link Board#zobristKey()})
+ *   int  move    the move's {@link Move#code(int) code}: from, to, promotion
+ *   int  weight  how often the move was played (see {@link BookBuilder})
+ * </pre>
+ * A lookup is a binary search with absolute reads straight from the mapping,
+ * so nothing is copied onto the heap, and one instance can serve any number of
+ * games on any number of threads. The keys are this program's own Zobrist
+ * keys, which are fixed across runs; the format is not Polyglot.
+ */
+public final class OpeningBook {
+    public static final int ENTRY_BYTES = 16;
+
+    // scratch list for pick(), per thread since one book serves many threads
+    private static final ThreadLocal<MoveList> LEGAL = ThreadLocal.withInitial(MoveList::new);
+
+    private final MappedByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /** Maps a book file built by {@link BookBuilder}. */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % ENTRY_BYTES != 0 || bytes > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book (size " + bytes + "): " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return new OpeningBook(map); // the mapping stays valid after the channel is closed
+        }
+    }
+
+    /** Number of (position, move) entries. */
+    public int size() {
+        return size;
+    }
+
+    /** Index of the first entry for {@code key}, or -1 if the position is not in the book. */
+    public int find(long key) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(mid) < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < size && key(lo) == key ? lo : -1;
+    }
+
+    public long key(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    /** The move code of an entry (compare with {@link Move#code(int)}). */
+    public int move(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 8);
+    }
+
+    public int weight(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 12);
+    }
+
+    /** The most played book move in this position, or 0 if none. See {@link #pick}. */
+    public int bestMove(Board board) {
+        return pick(board, -1);
+    }
+
+    /** A book move chosen at random in proportion to the weights, or 0 if none. */
+    public int randomMove(Board board, Random random) {
+        return pick(board, random.nextDouble());
+    }
+
+    /**
+     * A book move for the side to move, as a legal packed move from
+     * {@link MoveGenerator} (so it carries its flags); 0 if the position is not
+     * in the book. Entries that are not legal here, which would mean a key
+     * collision, are skipped. {@code fraction} in [0, 1) selects by weight; a
+     * negative value takes the heaviest move. Only the moves from the book
+     * moves' origin squares are generated to check them against.
+     */
+    public int pick(Board board, double fraction) {
+        long key = board.zobristKey();
+        int first = find(key);
+        if (first < 0) return 0;
+        int end = first;
+        long origins = 0;
+        for (; end < size && key(end) == key; end++) origins |= 1L << Move.from(move(end));
+        MoveList legal = LEGAL.get();
+        MoveGenerator.legalMovesFrom(board, origins, legal);
+
+        long total = 0;
+        for (int i = first; i < end; i++) {
+            if (legal.indexOf(move(i)) >= 0) total += weight(i);
+        }
+        if (total == 0) return 0;
+        long target = fraction < 0 ? 0 : (long) (fraction * total);
+        for (int i = first; i < end; i++) {
+            int index = legal.indexOf(move(i));
+            if (index < 0) continue;
+            target -= weight(i);
+            if (target < 0) return legal.get(index);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,334 @@
+package chess.engine;
+
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Negamax alpha-beta search with iterative deepening and a captures-only
+ * quiescence search at the horizon. The search works on its own copy of the
+ * board using make/unmake, so the caller's board is never touched. Results are
+ * kept in a {@link TranspositionTable} for cutoffs and to try the best move of a
+ * previous visit first; the other moves are ordered by {@link MoveOrderer}.
+ *
+ * A {@code Search} instance is not thread-safe, except for {@link #stop()}, which
+ * may be called from any thread.
+ */
+public class Search {
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 32000;
+    private static final int INFINITY = 32001;
+    private static final int NO_TABLEBASE = Integer.MIN_VALUE;
+    public static final int DEFAULT_HASH_MB = 16;
+
+    private final TranspositionTable tt;
+    private Tablebase tablebase;
+
+    private Board board;
+    private SearchLimits limits;
+    private SearchListener listener;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    private long nodes;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long startNanos;
+    private long deadlineNanos;
+
+    // one reusable move list per ply, so the search itself allocates nothing per node
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final MoveOrderer orderer = new MoveOrderer();
+    private final int[] playedMoves = new int[MAX_PLY + 1]; // the move being searched at each ply
+
+    // triangular principal variation table, in packed moves
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] previousPv = new int[MAX_PLY + 1];
+    private int previousPvLength;
+
+    public Search() {
+        this(new TranspositionTable(DEFAULT_HASH_MB));
+    }
+
+    public Search(TranspositionTable tt) {
+        this.tt = tt;
+        for (int i = 0; i < moveLists.length; i++) moveLists[i] = new MoveList();
+    }
+
+    public TranspositionTable transpositionTable() {
+        return tt;
+    }
+
+    /** Endgame tables to take exact results from; null to search everything. */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /** Asks a running search to return as soon as possible with its best move so far. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /** Nodes searched so far; may be polled from another thread for a progress display. */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Beta cutoffs in the main search (not quiescence) during the last search,
+     * and how many of them came from the first move tried: the closer the two,
+     * the better the move ordering.
+     */
+    public long cutoffs() {
+        return cutoffs;
+    }
+
+    public long firstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /** {@link #firstMoveCutoffs()} as a fraction of {@link #cutoffs()}. */
+    public double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Searches the position on {@code position} for its side to move. A
+     * {@link #stop()} since the last {@link #resetStop()} makes it return at once
+     * with the first legal move.
+     */
+    public SearchResult search(Board position, SearchLimits limits) {
+        tt.newSearch();
+        return run(position, limits, 1, listener);
+    }
+
+    /**
+     * Lazy SMP helper entry point: searches from {@code startDepth} without
+     * reporting, sharing only the transposition table with the main search.
+     * {@link #resetStop()} must be called before the helper is started, so a
+     * {@link #stop()} that arrives before it gets going is not lost.
+     */
+    SearchResult searchAsHelper(Board position, SearchLimits limits, int startDepth) {
+        return run(position, limits, startDepth, null);
+    }
+
+    /**
+     * Clears an earlier {@link #stop()}. A caller that runs the search on another
+     * thread must call this before handing the search over, so a stop that
+     * arrives before that thread gets going is not lost.
+     */
+    public void resetStop() {
+        stopRequested = false;
+    }
+
+    private SearchResult run(Board position, SearchLimits limits, int startDepth, SearchListener listener) {
+        this.board = position.clone();
+        this.limits = limits;
+        this.aborted = false;
+        this.nodes = 0;
+        this.cutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        orderer.newSearch();
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = limits.moveTimeMillis == Long.MAX_VALUE
+                ? Long.MAX_VALUE : startNanos + limits.moveTimeMillis * 1_000_000L;
+
+        MoveList rootMoves = moveLists[0];
+        MoveGenerator.legalMoves(board, board.sideToMove(), rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = board.isKingInCheck(board.sideToMove()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, 0, List.of());
+        }
+
+        // in a tablebase ending one ply is exact, since every child is probed
+        int maxDepth = probe(board, 1) == NO_TABLEBASE ? limits.depth : Math.min(limits.depth, 1);
+
+        Move first = Move.decode(rootMoves.get(0));
+        SearchResult best = new SearchResult(first, 0, 0, 0, 0, List.of(first));
+        previousPvLength = 0;
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY, true);
+            if (aborted && (depth > startDepth || pvLength[0] == 0)) break; // keep the last completed iteration
+            previousPvLength = pvLength[0];
+            System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+            List<Move> pv = currentPv();
+            best = new SearchResult(pv.get(0), score, depth, nodes, elapsedMillis(), pv);
+            if (listener != null) listener.onIteration(best);
+            if (aborted || Math.abs(score) >= MATE - depth) break;
+        }
+        return new SearchResult(best.bestMove, best.score, best.depth, nodes, elapsedMillis(), best.pv);
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, boolean onPreviousPv) {
+        pvLength[ply] = ply;
+        if (depth <= 0) return quiesce(ply, alpha, beta);
+        if (shouldStop()) return 0;
+        nodes++;
+
+        long key = board.zobristKey();
+        long entry = tt.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (ply > 0) {
+            int exact = probe(board, ply);
+            if (exact != NO_TABLEBASE) return exact;
+        }
+
+        Color us = board.sideToMove();
+        MoveList moves = moveLists[ply];
+        MoveGenerator.legalMoves(board, us, moves);
+        if (moves.isEmpty()) return board.isKingInCheck(us) ? -MATE + ply : 0;
+        if (ply >= MAX_PLY) return Evaluator.evaluate(board);
+
+        // hash move first, else follow the previous iteration's principal variation
+        int firstMove = hashMove;
+        if (firstMove == 0 && onPreviousPv && ply < previousPvLength) firstMove = previousPv[ply];
+        int previous = ply > 0 ? playedMoves[ply - 1] : 0;
+        orderer.score(board, moves, ply, firstMove, previous);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int m = orderer.next(moves, ply, i);
+            playedMoves[ply] = m;
+            board.makeMove(m);
+            // only the first move continues the old PV
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, onPreviousPv && i == 0);
+            board.unmakeMove();
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = m;
+            }
+            if (score > alpha) {
+                alpha = score;
+                updatePv(ply, m);
+                if (alpha >= beta) {
+                    cutoffs++;
+                    if (i == 0) firstMoveCutoffs++;
+                    if (MoveOrderer.isQuiet(m)) orderer.cutoff(board, moves, i, ply, depth, previous);
+                    break;
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > alphaOrig ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        tt.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // mate scores are stored relative to the node, not the root, so they stay valid at any ply
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        if (shouldStop()) return 0;
+        nodes++;
+
+        int exact = probe(board, ply);
+        if (exact != NO_TABLEBASE) return exact;
+
+        Color us = board.sideToMove();
+        boolean inCheck = board.isKingInCheck(us);
+        if (ply >= MAX_PLY) return Evaluator.evaluate(board);
+        int best = -INFINITY;
+        if (!inCheck) {
+            // stand pat: the side to move can usually do at least as well as doing nothing
+            best = Evaluator.evaluate(board);
+            if (best >= beta) return best;
+            if (best > alpha) alpha = best;
+        }
+
+        MoveList moves = moveLists[ply];
+        if (inCheck) {
+            MoveGenerator.legalMoves(board, us, moves);
+            if (moves.isEmpty()) return -MATE + ply;
+        } else {
+            MoveGenerator.legalCaptures(board, us, moves);
+        }
+        orderer.score(board, moves, ply, 0, 0);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(orderer.next(moves, ply, i));
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) return 0;
+            if (score > best) best = score;
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    /** Exact score from the tablebase at this ply, or {@link #NO_TABLEBASE}. */
+    private int probe(Board board, int ply) {
+        if (tablebase == null || Long.bitCount(board.occupancy()) != 3) return NO_TABLEBASE;
+        int entry = tablebase.probe(board);
+        if (entry == Tablebase.NOT_FOUND) return NO_TABLEBASE;
+        switch (Tablebase.wdl(entry)) {
+            case Tablebase.WIN: return MATE - ply - Tablebase.dtm(entry);
+            case Tablebase.LOSS: return -MATE + ply + Tablebase.dtm(entry);
+            default: return 0;
+        }
+    }
+
+    private boolean shouldStop() {
+        if (aborted) return true;
+        if ((nodes & 1023) == 0) {
+            if (stopRequested || nodes >= limits.nodes || System.nanoTime() >= deadlineNanos) aborted = true;
+        } else if (nodes >= limits.nodes) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private void updatePv(int ply, int m) {
+        pvTable[ply][ply] = m;
+        for (int i = ply + 1; i < pvLength[ply + 1]; i++) pvTable[ply][i] = pvTable[ply + 1][i];
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    private List<Move> currentPv() {
+        List<Move> pv = new ArrayList<>(pvLength[0]);
+        for (int i = 0; i < pvLength[0]; i++) pv.add(Move.decode(pvTable[0][i]));
+        return pv;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+}
@@ -0,0 +1,44 @@
+package chess.engine;
+
+/**
+ * When a search must stop: at a maximum depth, after a number of nodes or after
+ * a fixed time. Limits combine; the first one reached ends the search. A search
+ * can always be stopped early with {@link Search#stop()}.
+ */
+public final class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+
+    public final int depth;
+    public final long nodes;
+    public final long moveTimeMillis;
+
+    public SearchLimits(int depth, long nodes, long moveTimeMillis) {
+        this.depth = Math.min(depth, MAX_DEPTH);
+        this.nodes = nodes;
+        this.moveTimeMillis = moveTimeMillis;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits moveTime(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+
+    /** Searches until {@link Search#stop()} is called (or the depth cap is reached). */
+    public static SearchLimits infinite() {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits[depth=" + depth
+                + (nodes != Long.MAX_VALUE ? ", nodes=" + nodes : "")
+                + (moveTimeMillis != Long.MAX_VALUE ? ", movetime=" + moveTimeMillis + "ms" : "") + "]";
+    }
+}
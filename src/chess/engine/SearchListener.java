@@ -0,0 +1,7 @@
+package chess.engine;
+
+/** Receives a report after every completed iteration of iterative deepening. */
+@FunctionalInterface
+public interface SearchListener {
+    void onIteration(SearchResult info);
+}
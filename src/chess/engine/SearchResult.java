@@ -0,0 +1,56 @@
+package chess.engine;
+
+import chess.model.Move;
+
+import java.util.List;
+
+/**
+ * Outcome of a search, or of one completed iteration while it is still running.
+ * Scores are in centipawns from the side to move's point of view; mate scores
+ * are within {@link Search#MAX_PLY} of {@link Search#MATE}.
+ */
+public final class SearchResult {
+    public final Move bestMove;   // null if the side to move has no legal move
+    public final int score;
+    public final int depth;
+    public final long nodes;
+    public final long elapsedMillis;
+    public final List<Move> pv;
+
+    public SearchResult(Move bestMove, int score, int depth, long nodes, long elapsedMillis, List<Move> pv) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.pv = List.copyOf(pv);
+    }
+
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(1, elapsedMillis);
+    }
+
+    public boolean isMateScore() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /** Moves to mate (negative when being mated), or 0 if this is not a mate score. */
+    public int mateIn() {
+        if (!isMateScore()) return 0;
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth)
+                .append(isMateScore() ? " mate " + mateIn() : " cp " + score)
+                .append(" nodes ").append(nodes)
+                .append(" nps ").append(nodesPerSecond())
+                .append(" time ").append(elapsedMillis)
+                .append(" pv");
+        for (Move m : pv) sb.append(' ').append(m.toLongAlgebraic());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package chess.engine;
+
+import chess.model.Board;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP: one main {@link Search} plus N-1 helpers running the same position
+ * at the same time. Every thread searches its own {@link Board} copy, and the
+ * threads only communicate through the shared {@link TranspositionTable}, so
+ * helpers mostly fill the table with results the main thread then reuses.
+ * Helpers start at staggered depths to spread them over different iterations.
+ * The main thread's limits decide when the search ends and its move is returned;
+ * node counts are summed over all threads.
+ */
+public class SmpSearch implements AutoCloseable {
+    private final TranspositionTable tt;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+    private SearchListener listener;
+
+    public SmpSearch(int threads, int hashMegabytes) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
+        this.tt = new TranspositionTable(hashMegabytes);
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) searches[i] = new Search(tt);
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, r -> {
+            Thread t = new Thread(r, "search-helper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int threads() {
+        return searches.length;
+    }
+
+    public TranspositionTable transpositionTable() {
+        return tt;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        for (Search s : searches) s.setTablebase(tablebase);
+    }
+
+    /** Receives the main thread's iterations, with node counts summed over all threads. */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public void stop() {
+        searches[0].stop();
+    }
+
+    /** See {@link Search#resetStop()}: call before handing {@link #search} to another thread. */
+    public void resetStop() {
+        searches[0].resetStop();
+    }
+
+    public SearchResult search(Board position, SearchLimits limits) {
+        List<Future<?>> running = new ArrayList<>(searches.length - 1);
+        SearchLimits helperLimits = SearchLimits.depth(limits.depth);
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            helper.resetStop();
+            Board copy = position.clone();
+            int startDepth = 1 + (i & 1);
+            running.add(helpers.submit(() -> helper.searchAsHelper(copy, helperLimits, startDepth)));
+        }
+
+        Search main = searches[0];
+        main.setListener(listener == null ? null : info -> listener.onIteration(new SearchResult(
+                info.bestMove, info.score, info.depth, totalNodes(), info.elapsedMillis, info.pv)));
+        SearchResult result;
+        try {
+            result = main.search(position, limits);
+        } finally {
+            for (int i = 1; i < searches.length; i++) searches[i].stop();
+            for (Future<?> f : running) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Search helper failed", e.getCause());
+                }
+            }
+        }
+        return new SearchResult(result.bestMove, result.score, result.depth, totalNodes(),
+                result.elapsedMillis, result.pv);
+    }
+
+    /** Nodes searched so far over all threads; may be polled from another thread for a progress display. */
+    public long nodes() {
+        return totalNodes();
+    }
+
+    private long totalNodes() {
+        long total = 0;
+        for (Search s : searches) total += s.nodes(); // helpers' counts are racy reads while running
+        return total;
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) helpers.shutdownNow();
+    }
+}
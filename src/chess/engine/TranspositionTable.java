@@ -0,0 +1,174 @@
+package chess.engine;
+
+import chess.model.Move;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table in a flat {@code long[]}, keyed by the board's
+ * Zobrist key.
+ *
+ * Each entry is two longs, {@code key ^ data} and {@code data}, where data packs
+ * the best move, score, depth, bound and search generation. A reader accepts an
+ * entry only if XOR-ing the two words gives back its key, so an entry torn by
+ * two threads writing at once is simply a miss; no locks are needed. Entries are
+ * grouped in buckets of two: the first slot keeps the deepest (or most recent
+ * search's) result, the second is always replaced.
+ */
+public final class TranspositionTable {
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;   // score is at least this (fail high)
+    public static final int BOUND_UPPER = 3;   // score is at most this (fail low)
+
+    private static final int LONGS_PER_BUCKET = 4;
+    private static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+
+    // data layout: move 0-15 | score 16-31 | depth 32-39 | bound 40-41 | generation 42-47
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int GENERATION_SHIFT = 42;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /** Creates a table using at most {@code megabytes} MB (rounded down to a power of two buckets). */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) throw new IllegalArgumentException("Table size must be at least 1 MB");
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_BUCKET);
+        if (buckets * LONGS_PER_BUCKET > Integer.MAX_VALUE - 8) buckets = 1L << 29;
+        this.table = new long[(int) buckets * LONGS_PER_BUCKET];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /** Marks the start of a new search so entries from older searches are replaced first. */
+    public void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        generation = 0;
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+        stores.reset();
+    }
+
+    /** Returns the packed data stored for {@code key}, or 0 if there is none. */
+    public long probe(long key) {
+        int i = index(key);
+        for (int slot = i; slot < i + LONGS_PER_BUCKET; slot += 2) {
+            long data = table[slot + 1];
+            if ((table[slot] ^ data) == key && data != 0) {
+                hits.increment();
+                return data;
+            }
+        }
+        misses.increment();
+        return 0;
+    }
+
+    /** Stores a result; only the {@link Move#code(int) code} of {@code move} is kept (0 = no move). */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int i = index(key);
+        int gen = generation;
+        long data = Move.code(move)
+                | (score & 0xFFFFL) << SCORE_SHIFT
+                | (long) (Math.max(0, Math.min(depth, 255))) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) gen << GENERATION_SHIFT;
+
+        // depth-preferred slot: take it for the same position, a deeper (or equal)
+        // result, or when its entry is left over from an earlier search
+        long oldData = table[i + 1];
+        long oldKey = table[i] ^ oldData;
+        int slot;
+        if (oldData == 0 || oldKey == key || depth >= depth(oldData) || generation(oldData) != gen) {
+            slot = i;
+        } else {
+            slot = i + 2; // always-replace slot
+            oldData = table[slot + 1];
+            oldKey = table[slot] ^ oldData;
+        }
+        if (oldData != 0 && oldKey != key) collisions.increment();
+        // keep the old best move if this result has none for the same position
+        if (move == 0 && oldKey == key) data |= oldData & 0xFFFFL;
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+        stores.increment();
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    /** The stored move's {@link Move#code(int) code}, or 0 if none. */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 63;
+    }
+
+    /** Approximate fill level in permille, sampled from the first 1000 buckets. */
+    public int hashfull() {
+        int buckets = Math.min(1000, bucketMask + 1);
+        int used = 0, gen = generation;
+        for (int b = 0; b < buckets; b++) {
+            for (int slot = b * LONGS_PER_BUCKET; slot < (b + 1) * LONGS_PER_BUCKET; slot += 2) {
+                long data = table[slot + 1];
+                if (data != 0 && generation(data) == gen) used++;
+            }
+        }
+        return used * 1000 / (buckets * 2);
+    }
+
+    public long sizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Stores that overwrote an entry belonging to a different position. */
+    public long collisions() {
+        return collisions.sum();
+    }
+
+    public long stores() {
+        return stores.sum();
+    }
+
+    @Override
+    public String toString() {
+        long h = hits(), m = misses();
+        return String.format("TT %d MB: hits %d, misses %d (%.1f%% hit rate), stores %d, collisions %d, hashfull %d",
+                sizeInBytes() >> 20, h, m, 100.0 * h / Math.max(1, h + m), stores(), collisions(), hashfull());
+    }
+}
@@ -0,0 +1,49 @@
+package chess.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A range of a byte array read as ASCII characters. Readers re-point one
+ * instance at each line or token instead of creating a {@code String}.
+ */
+final class AsciiSlice implements CharSequence {
+    private byte[] bytes;
+    private int start, end;
+
+    AsciiSlice() {}
+
+    AsciiSlice(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    void set(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    void set(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[start + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().substring(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,151 @@
+package chess.io;
+
+import chess.model.Board;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams positions out of EPD or FEN files of any size. The file is memory
+ * mapped in windows of {@link #WINDOW_BYTES}, so only the part being read is
+ * resident; bytes are bulk-copied from the mapping into a small reusable block
+ * and lines are parsed straight from there. A line never becomes a
+ * {@code String}, and one {@link Board} is reused for every position.
+ *
+ * Each line holds a position's first four FEN fields, optionally followed by
+ * FEN move counters or EPD operations (e.g. {@code bm Nf3; id "x";}). Empty
+ * lines and lines starting with {@code #} are skipped.
+ */
+public final class EpdReader implements AutoCloseable {
+    /** Bytes mapped at a time. */
+    public static final int WINDOW_BYTES = 64 << 20;
+    /** Size of the parse block; a single line may not be longer. */
+    public static final int BLOCK_BYTES = 1 << 20;
+
+    /** Receives positions as they are read. */
+    public interface Handler {
+        /**
+         * Called once per position. {@code board} is reused for the next line and
+         * {@code operations} is only valid during the call; copy what you keep.
+         */
+        void position(Board board, CharSequence operations, long lineNumber);
+
+        /** Called for a line that is not a valid position; rethrows by default. */
+        default void malformed(CharSequence line, long lineNumber, IllegalArgumentException error) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + error.getMessage(), error);
+        }
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position; // next file offset to copy
+
+    public EpdReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    /** Reads the whole file, passing every position to {@code handler}; returns the number of positions. */
+    public long read(Handler handler) throws IOException {
+        Board board = Board.fromFen(Board.START_FEN);
+        byte[] block = new byte[BLOCK_BYTES];
+        AsciiSlice line = new AsciiSlice(block);
+        AsciiSlice fen = new AsciiSlice(block);
+        AsciiSlice operations = new AsciiSlice(block);
+        long lineNumber = 0;
+        long positions = 0;
+        position = 0;
+        int filled = 0;
+
+        while (true) {
+            filled += copy(block, filled, block.length - filled);
+            boolean atEnd = position == size;
+            int start = 0;
+            while (start < filled) {
+                int end = start;
+                while (end < filled && block[end] != '\n') end++;
+                if (end == filled && !atEnd) break; // line continues in the next block
+                lineNumber++;
+                int trimmed = end;
+                while (trimmed > start && (block[trimmed - 1] == '\r' || block[trimmed - 1] == ' ')) trimmed--;
+                if (trimmed > start && block[start] != '#') {
+                    line.set(start, trimmed);
+                    int split = operationsStart(block, start, trimmed);
+                    fen.set(start, split);
+                    operations.set(Math.min(split + 1, trimmed), trimmed);
+                    boolean ok = true;
+                    try {
+                        board.loadFen(fen);
+                    } catch (IllegalArgumentException e) {
+                        ok = false;
+                        handler.malformed(line, lineNumber, e);
+                    }
+                    if (ok) {
+                        positions++;
+                        handler.position(board, operations, lineNumber);
+                    }
+                }
+                start = end + 1;
+            }
+            if (atEnd) return positions;
+            if (start == 0) {
+                throw new IOException("Line " + (lineNumber + 1) + " is longer than " + BLOCK_BYTES + " bytes");
+            }
+            // keep the unfinished line for the next block
+            filled -= start;
+            System.arraycopy(block, start, block, 0, filled);
+        }
+    }
+
+    /** Copies up to {@code length} bytes from the file into {@code dst}, mapping windows as needed. */
+    private int copy(byte[] dst, int offset, int length) throws IOException {
+        int copied = 0;
+        while (copied < length && position < size) {
+            if (window == null || position >= windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_BYTES, size - windowStart));
+            }
+            int inWindow = (int) (position - windowStart);
+            int n = Math.min(length - copied, window.capacity() - inWindow);
+            window.get(inWindow, dst, offset + copied, n);
+            copied += n;
+            position += n;
+        }
+        return copied;
+    }
+
+    /**
+     * Where the FEN part of a line ends: after four fields, plus the two move
+     * counters if they follow (FEN), otherwise the EPD operations begin there.
+     */
+    private static int operationsStart(byte[] buf, int from, int to) {
+        int i = from;
+        for (int field = 0; field < 4; field++) {
+            while (i < to && buf[i] == ' ') i++;
+            while (i < to && buf[i] != ' ') i++;
+        }
+        int afterFields = i;
+        for (int counter = 0; counter < 2; counter++) {
+            while (i < to && buf[i] == ' ') i++;
+            if (i == to || !isDigit(buf[i])) return afterFields;
+            while (i < to && isDigit(buf[i])) i++;
+            if (i < to && buf[i] != ' ') return afterFields;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
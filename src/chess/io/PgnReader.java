@@ -0,0 +1,411 @@
+package chess.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads PGN files of any size and hands the games to worker threads.
+ *
+ * The calling thread maps the file in windows of {@link #WINDOW_BYTES} and
+ * copies it into batches of {@link #BATCH_BYTES}, finding where each game
+ * starts without decoding it: a tag line ({@code [Event ...]}) that follows
+ * movetext begins a new game, with comments skipped so a bracket inside one
+ * does not count. A game cut off at the end of a batch moves to the next one.
+ * Workers take whole batches and decode their games through {@link Game}.
+ *
+ * The batches come from a fixed pool of {@code 2 * threads + 1}, so memory
+ * stays the same whatever the size of the file; the reader simply waits when
+ * the workers fall behind.
+ */
+public final class PgnReader implements AutoCloseable {
+    /** Bytes mapped at a time. */
+    public static final int WINDOW_BYTES = 64 << 20;
+    /** Size of one batch of games; a single game may not be longer. */
+    public static final int BATCH_BYTES = 1 << 20;
+
+    /** Receives games, concurrently from all worker threads. */
+    public interface Handler {
+        /** Called once per game; {@code game} is only valid during the call. */
+        void game(Game game);
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position; // next file offset to copy
+
+    public PgnReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Reads the whole file, passing every game to {@code handler} on one of
+     * {@code threads} worker threads; returns the number of games. Games are
+     * not handled in file order, see {@link Game#number()}. If the handler
+     * throws, reading stops and the exception is rethrown here.
+     */
+    public long read(int threads, Handler handler) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        int poolSize = 2 * threads + 1;
+        BlockingQueue<Batch> free = new ArrayBlockingQueue<>(poolSize);
+        BlockingQueue<Batch> full = new ArrayBlockingQueue<>(poolSize + threads);
+        for (int i = 0; i < poolSize; i++) free.add(new Batch(BATCH_BYTES));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> work(full, free, handler, failure), "pgn-reader-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        long games = 0;
+        try {
+            games = split(free, full, failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading PGN");
+        } finally {
+            for (int i = 0; i < threads; i++) full.add(Batch.DONE);
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return games;
+    }
+
+    /** Fills batches with whole games and queues them; returns the number of games. */
+    private long split(BlockingQueue<Batch> free, BlockingQueue<Batch> full, AtomicReference<Throwable> failure)
+            throws IOException, InterruptedException {
+        position = 0;
+        long games = 0;
+        Batch batch = free.take();
+        batch.reset(0);
+        int filled = 0, scan = 0, lineBegin = 0;
+        boolean skipLine = false, inBrace = false, seenMoves = false, content = false;
+
+        while (failure.get() == null) {
+            filled += copy(batch.data, filled, BATCH_BYTES - filled);
+            boolean atEnd = position == size;
+            byte[] d = batch.data;
+            if (batch.offset == 0 && scan == 0 && filled >= 3
+                    && d[0] == (byte) 0xEF && d[1] == (byte) 0xBB && d[2] == (byte) 0xBF) {
+                scan = 3; // UTF-8 byte order mark
+            }
+            for (int i = scan; i < filled; i++) {
+                byte ch = d[i];
+                if (inBrace) {
+                    if (ch == '}') inBrace = false;
+                    continue;
+                }
+                if (ch == '\n') {
+                    skipLine = false;
+                    lineBegin = i + 1;
+                    continue;
+                }
+                if (skipLine || ch == ' ' || ch == '\t' || ch == '\r') continue;
+                if (ch == '[') {
+                    if (seenMoves) {
+                        batch.addGame(lineBegin);
+                        seenMoves = false;
+                    }
+                    content = true;
+                    skipLine = true;
+                } else if (ch == '{') {
+                    inBrace = true;
+                } else if (ch == ';' || (ch == '%' && i == lineBegin)) {
+                    skipLine = true;
+                } else {
+                    seenMoves = true;
+                    content = true;
+                }
+            }
+            scan = filled;
+
+            if (atEnd) {
+                if (!content) batch.games--; // nothing but whitespace after the last game
+                batch.end = filled;
+                games += publish(batch, games, full, free);
+                return games;
+            }
+
+            // the batch is full: the last game may continue, so it starts the next batch
+            int last = batch.starts[batch.games - 1];
+            if (last == 0) {
+                throw new IOException("Game at byte " + batch.offset + " is longer than " + BATCH_BYTES + " bytes");
+            }
+            Batch next = free.take();
+            next.reset(batch.offset + last);
+            System.arraycopy(batch.data, last, next.data, 0, filled - last);
+            batch.games--;
+            batch.end = last;
+            games += publish(batch, games, full, free);
+            batch = next;
+            filled -= last;
+            scan -= last;
+            lineBegin -= last;
+        }
+        free.put(batch);
+        return games;
+    }
+
+    private static int publish(Batch batch, long gamesBefore, BlockingQueue<Batch> full,
+                               BlockingQueue<Batch> free) throws InterruptedException {
+        int n = batch.games;
+        batch.firstNumber = gamesBefore + 1;
+        if (n > 0) full.put(batch);
+        else free.put(batch);
+        return n;
+    }
+
+    private static void work(BlockingQueue<Batch> full, BlockingQueue<Batch> free, Handler handler,
+                             AtomicReference<Throwable> failure) {
+        Game game = new Game();
+        try {
+            while (true) {
+                Batch batch = full.take();
+                if (batch == Batch.DONE) return;
+                if (failure.get() == null) {
+                    try {
+                        for (int g = 0; g < batch.games; g++) {
+                            int end = g + 1 < batch.games ? batch.starts[g + 1] : batch.end;
+                            game.set(batch.data, batch.starts[g], end, batch.firstNumber + g, batch.offset + batch.starts[g]);
+                            handler.game(game);
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e); // keep draining so the reader never blocks
+                    }
+                }
+                free.put(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Copies up to {@code length} bytes from the file into {@code dst}, mapping windows as needed. */
+    private int copy(byte[] dst, int offset, int length) throws IOException {
+        int copied = 0;
+        while (copied < length && position < size) {
+            if (window == null || position >= windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_BYTES, size - windowStart));
+            }
+            int inWindow = (int) (position - windowStart);
+            int n = Math.min(length - copied, window.capacity() - inWindow);
+            window.get(inWindow, dst, offset + copied, n);
+            copied += n;
+            position += n;
+        }
+        return copied;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /** Bytes of consecutive games, game {@code g} starting at {@code starts[g]}. */
+    private static final class Batch {
+        static final Batch DONE = new Batch(0);
+
+        final byte[] data;
+        int[] starts = new int[256];
+        int games;
+        int end;
+        long offset;      // file offset of data[0]
+        long firstNumber; // number of the first game
+
+        Batch(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void reset(long offset) {
+            this.offset = offset;
+            games = 0;
+            addGame(0);
+        }
+
+        void addGame(int start) {
+            if (games == starts.length) starts = Arrays.copyOf(starts, games * 2);
+            starts[games++] = start;
+        }
+    }
+
+    /**
+     * One game, as a view into its batch. Tags are decoded on request and the
+     * main line is walked one SAN move at a time; comments, variations, move
+     * numbers and annotation glyphs are skipped.
+     */
+    public static final class Game {
+        private byte[] data;
+        private int start, end, cursor;
+        private long number, offset;
+        private String result;
+        private final AsciiSlice move = new AsciiSlice();
+
+        void set(byte[] data, int start, int end, long number, long offset) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+            this.number = number;
+            this.offset = offset;
+            this.cursor = start;
+            this.result = null;
+        }
+
+        /** Position of this game in the file, starting at 1. */
+        public long number() {
+            return number;
+        }
+
+        /** Byte offset of this game in the file. */
+        public long offset() {
+            return offset;
+        }
+
+        /** The value of the header tag {@code name} (e.g. {@code FEN}), or null. */
+        public String tag(String name) {
+            int i = start;
+            while (i < end) {
+                while (i < end && (data[i] == ' ' || data[i] == '\t' || data[i] == '\r' || data[i] == '\n')) i++;
+                if (i == end || data[i] != '[') return null; // end of the header
+                int lineEnd = i;
+                while (lineEnd < end && data[lineEnd] != '\n') lineEnd++;
+                int n = i + 1;
+                while (n < lineEnd && data[n] != ' ' && data[n] != '"') n++;
+                if (n - i - 1 == name.length() && sameAscii(i + 1, name)) {
+                    int open = n;
+                    while (open < lineEnd && data[open] != '"') open++;
+                    int close = lineEnd;
+                    while (close > open && data[close - 1] != '"') close--;
+                    if (close - 1 > open) return unescape(open + 1, close - 1);
+                    return "";
+                }
+                i = lineEnd;
+            }
+            return null;
+        }
+
+        /**
+         * Advances to the next move of the main line; false once the movetext
+         * ends, after which {@link #result()} holds its termination marker.
+         */
+        public boolean nextMove() {
+            int i = cursor;
+            int depth = 0; // inside a variation
+            while (i < end) {
+                byte ch = data[i];
+                if (ch <= ' ') {
+                    i++;
+                } else if (ch == '[' || ch == ';' || (ch == '%' && (i == start || data[i - 1] == '\n'))) {
+                    while (i < end && data[i] != '\n') i++;
+                } else if (ch == '{') {
+                    while (i < end && data[i] != '}') i++;
+                    i++;
+                } else if (ch == '(') {
+                    depth++;
+                    i++;
+                } else if (ch == ')') {
+                    if (depth > 0) depth--;
+                    i++;
+                } else if (ch == '$') {
+                    i++;
+                    while (i < end && data[i] >= '0' && data[i] <= '9') i++;
+                } else {
+                    int t = i;
+                    while (i < end && !isDelimiter(data[i])) i++;
+                    if (depth > 0) continue;
+                    int s = t;
+                    while (s < i && data[s] >= '0' && data[s] <= '9') s++;
+                    if (s < i && data[s] == '.') {
+                        while (s < i && data[s] == '.') s++;
+                        if (s == i) continue; // move number, e.g. 12. or 12...
+                        t = s;
+                    }
+                    if (isResult(t, i)) {
+                        result = new String(data, t, i - t, StandardCharsets.ISO_8859_1);
+                        cursor = end;
+                        return false;
+                    }
+                    if (isGlyph(t, i)) continue; // !, ?!, ... written apart from the move
+                    move.set(data, t, i);
+                    cursor = i;
+                    return true;
+                }
+            }
+            cursor = end;
+            return false;
+        }
+
+        /** The current move's SAN, valid until the next call to {@link #nextMove()}. */
+        public CharSequence move() {
+            return move;
+        }
+
+        /** {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}; null if the movetext had no marker. */
+        public String result() {
+            return result;
+        }
+
+        /** The game's full text. */
+        public String text() {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        private boolean sameAscii(int at, String s) {
+            for (int k = 0; k < s.length(); k++) {
+                if (data[at + k] != s.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        private String unescape(int from, int to) {
+            boolean escaped = false;
+            for (int k = from; k < to; k++) escaped |= data[k] == '\\';
+            String raw = new String(data, from, to - from, StandardCharsets.UTF_8);
+            return escaped ? raw.replace("\\\"", "\"").replace("\\\\", "\\") : raw;
+        }
+
+        private boolean isResult(int from, int to) {
+            int n = to - from;
+            if (n == 1) return data[from] == '*';
+            if (n == 3) return sameAscii(from, "1-0") || sameAscii(from, "0-1");
+            return n == 7 && sameAscii(from, "1/2-1/2");
+        }
+
+        private boolean isGlyph(int from, int to) {
+            for (int k = from; k < to; k++) {
+                if (data[k] != '!' && data[k] != '?') return false;
+            }
+            return true;
+        }
+
+        private static boolean isDelimiter(byte ch) {
+            return ch <= ' ' || ch == '{' || ch == '(' || ch == ')' || ch == ';' || ch == '[' || ch == '$';
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package chess.io;
+
+import chess.model.GameState;
+import chess.model.Move;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays every game of a PGN file through {@link GameState#makeMove} on
+ * several threads, to validate a game database. Each game starts from the
+ * initial position or from its {@code FEN} tag; the first move that cannot be
+ * read or is not legal is reported and the rest of that game is skipped.
+ *
+ * Usage: {@code java -cp out chess.io.PgnReplay <file.pgn> [threads] [errorsShown]}
+ */
+public final class PgnReplay {
+    private static final int DEFAULT_ERRORS_SHOWN = 20;
+
+    /** Told about each game that could not be replayed; called from the worker threads. */
+    public interface ErrorListener {
+        /** {@code ply} is the 1-based half-move that failed, or 0 for a bad {@code FEN} tag. */
+        void error(long game, long offset, int ply, String message);
+    }
+
+    /** Totals of a replay. */
+    public static final class Summary {
+        public final long games;
+        public final long plies;
+        public final long errors;
+        public final long bytes;
+        public final long elapsedNanos;
+
+        Summary(long games, long plies, long errors, long bytes, long elapsedNanos) {
+            this.games = games;
+            this.plies = plies;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double gamesPerSecond() {
+            return games * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        public double pliesPerSecond() {
+            return plies * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        public double megabytesPerSecond() {
+            return bytes * 1e3 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games, %,d plies, %,d errors in %.2fs: %,.0f games/s, %,.0f plies/s, %.0f MB/s",
+                    games, plies, errors, elapsedNanos / 1e9, gamesPerSecond(), pliesPerSecond(), megabytesPerSecond());
+        }
+    }
+
+    private PgnReplay() {}
+
+    public static Summary replay(Path file, int threads, ErrorListener listener) throws IOException {
+        LongAdder plies = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        try (PgnReader reader = new PgnReader(file)) {
+            long games = reader.read(threads, game -> {
+                int ply = replay(game, listener);
+                if (ply < 0) {
+                    errors.increment();
+                    ply = -ply - 1;
+                }
+                plies.add(ply);
+            });
+            return new Summary(games, plies.sum(), errors.sum(), reader.size(), System.nanoTime() - start);
+        }
+    }
+
+    /** Plays one game; returns the number of plies, or {@code -(plies + 1)} if it stopped at an error. */
+    private static int replay(PgnReader.Game game, ErrorListener listener) {
+        GameState state;
+        String fen = game.tag("FEN");
+        try {
+            state = fen == null ? new GameState() : new GameState(fen);
+        } catch (IllegalArgumentException e) {
+            listener.error(game.number(), game.offset(), 0, e.getMessage());
+            return -1;
+        }
+        int ply = 0;
+        while (game.nextMove()) {
+            String error;
+            try {
+                Move m = state.moveFromSan(game.move());
+                error = state.makeMove(m) ? null : "Parsed move rejected: " + game.move();
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                listener.error(game.number(), game.offset(), ply + 1, error);
+                return -(ply + 1);
+            }
+            ply++;
+        }
+        return ply;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java chess.io.PgnReplay <file.pgn> [threads] [errorsShown]");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int shown = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ERRORS_SHOWN;
+        AtomicLong reported = new AtomicLong();
+        Summary summary = replay(Path.of(args[0]), threads, (game, offset, ply, message) -> {
+            if (reported.getAndIncrement() < shown) {
+                System.out.printf("game %d (byte %d), ply %d: %s%n", game, offset, ply, message);
+            }
+        });
+        System.out.println(summary + " (" + threads + " threads)");
+        if (summary.errors > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,224 @@
+package chess.model;
+
+/**
+ * Precomputed attack tables. Knight, king and pawn attacks are one lookup per
+ * square. Rook and bishop attacks use magic bitboards: the blockers on a
+ * slider's relevant squares (its rays minus the board edge) are multiplied by a
+ * per-square magic number, and the top bits of the product index a table that
+ * holds the attack set for that blocker pattern.
+ *
+ * The magic numbers below were found with a fixed-seed random search, which is
+ * too slow to repeat at every start-up; {@code java chess.model.Attacks} runs
+ * the search again and prints fresh tables. Filling the tables from them is
+ * quick and checks every magic, and the tables take about 850 KB.
+ */
+final class Attacks {
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    /** Indexed by color ordinal, then square. */
+    static final long[][] PAWN = new long[2][64];
+
+    private static final int[] ROOK_DR = {-1, 1, 0, 0};
+    private static final int[] ROOK_DC = {0, 0, -1, 1};
+    private static final int[] BISHOP_DR = {-1, -1, 1, 1};
+    private static final int[] BISHOP_DC = {-1, 1, -1, 1};
+
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    private static final Magics ROOK;
+    private static final Magics BISHOP;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            long bit = 1L << sq;
+            KNIGHT[sq] = Board.knightAttacks(bit);
+            KING[sq] = Board.kingAttacks(bit);
+            PAWN[Color.WHITE.ordinal()][sq] = Board.pawnAttacks(bit, Color.WHITE);
+            PAWN[Color.BLACK.ordinal()][sq] = Board.pawnAttacks(bit, Color.BLACK);
+        }
+        ROOK = new Magics(ROOK_DR, ROOK_DC, ROOK_MAGICS);
+        BISHOP = new Magics(BISHOP_DR, BISHOP_DC, BISHOP_MAGICS);
+    }
+
+    private Attacks() {}
+
+    static long rook(int sq, long occ) {
+        return ROOK.attacks(sq, occ);
+    }
+
+    static long bishop(int sq, long occ) {
+        return BISHOP.attacks(sq, occ);
+    }
+
+    /** Searches for new magic numbers and prints them in the form of the tables above. */
+    public static void main(String[] args) {
+        print("ROOK_MAGICS", new Magics(ROOK_DR, ROOK_DC, null).magic);
+        print("BISHOP_MAGICS", new Magics(BISHOP_DR, BISHOP_DC, null).magic);
+    }
+
+    private static void print(String name, long[] magics) {
+        StringBuilder sb = new StringBuilder("    private static final long[] " + name + " = {");
+        for (int sq = 0; sq < 64; sq++) {
+            if (sq % 4 == 0) sb.append("\n            ");
+            sb.append(String.format("0x%016XL", magics[sq]));
+            if (sq < 63) sb.append(sq % 4 == 3 ? "," : ", ");
+        }
+        System.out.println(sb.append("\n    };"));
+    }
+
+    /**
+     * Magic lookup tables for one slider type, all squares sharing one attack
+     * array. Built from the given magics, or from freshly searched ones if null.
+     */
+    private static final class Magics {
+        final long[] mask = new long[64];
+        final long[] magic = new long[64];
+        final int[] shift = new int[64];
+        final int[] offset = new int[64];
+        final long[] table;
+
+        Magics(int[] dr, int[] dc, long[] magics) {
+            int size = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                mask[sq] = relevantSquares(sq, dr, dc);
+                shift[sq] = 64 - Long.bitCount(mask[sq]);
+                offset[sq] = size;
+                size += 1 << Long.bitCount(mask[sq]);
+            }
+            table = new long[size];
+            for (int sq = 0; sq < 64; sq++) {
+                if (magics == null) {
+                    findMagic(sq, dr, dc);
+                } else if (!fill(sq, magics[sq], dr, dc)) {
+                    throw new IllegalStateException("Bad magic for square " + sq);
+                }
+            }
+        }
+
+        private boolean fill(int sq, long candidate, int[] dr, int[] dc) {
+            magic[sq] = candidate;
+            long subset = 0;
+            do {
+                long attacks = slidingAttacks(sq, subset, dr, dc);
+                int index = offset[sq] + (int) ((subset * candidate) >>> shift[sq]);
+                if (table[index] != 0 && table[index] != attacks) return false;
+                table[index] = attacks;
+                subset = (subset - mask[sq]) & mask[sq];
+            } while (subset != 0);
+            return true;
+        }
+
+        long attacks(int sq, long occ) {
+            return table[offset[sq] + (int) (((occ & mask[sq]) * magic[sq]) >>> shift[sq])];
+        }
+
+        private void findMagic(int sq, int[] dr, int[] dc) {
+            int n = 1 << (64 - shift[sq]);
+            long[] occupancies = new long[n];
+            long[] attacks = new long[n];
+            // enumerate every subset of the mask (carry-rippler)
+            long subset = 0;
+            for (int i = 0; i < n; i++) {
+                occupancies[i] = subset;
+                attacks[i] = slidingAttacks(sq, subset, dr, dc);
+                subset = (subset - mask[sq]) & mask[sq];
+            }
+            long[] used = new long[n];
+            int[] epoch = new int[n];
+            for (int attempt = 1; ; attempt++) {
+                long candidate = nextRandom() & nextRandom() & nextRandom(); // sparse numbers work best
+                if (Long.bitCount((mask[sq] * candidate) & 0xFF00000000000000L) < 6) continue;
+                boolean ok = true;
+                for (int i = 0; i < n && ok; i++) {
+                    int index = (int) ((occupancies[i] * candidate) >>> shift[sq]);
+                    if (epoch[index] != attempt) {
+                        epoch[index] = attempt;
+                        used[index] = attacks[i];
+                    } else if (used[index] != attacks[i]) {
+                        ok = false; // two blocker sets with different attacks collide
+                    }
+                }
+                if (ok) {
+                    magic[sq] = candidate;
+                    System.arraycopy(used, 0, table, offset[sq], n);
+                    return;
+                }
+            }
+        }
+    }
+
+    /** The squares whose occupancy matters: every ray, minus its last square on the edge. */
+    private static long relevantSquares(int sq, int[] dr, int[] dc) {
+        long mask = 0;
+        for (int d = 0; d < dr.length; d++) {
+            int r = (sq >>> 3) + dr[d], c = (sq & 7) + dc[d];
+            while (Board.inBounds(r + dr[d], c + dc[d])) {
+                mask |= 1L << (r * 8 + c);
+                r += dr[d];
+                c += dc[d];
+            }
+        }
+        return mask;
+    }
+
+    /** Ray walk, only used to fill the tables. */
+    static long slidingAttacks(int sq, long occ, int[] dr, int[] dc) {
+        long attacks = 0;
+        int r = sq >>> 3, c = sq & 7;
+        for (int d = 0; d < dr.length; d++) {
+            int rr = r + dr[d], cc = c + dc[d];
+            while (Board.inBounds(rr, cc)) {
+                long bit = 1L << (rr * 8 + cc);
+                attacks |= bit;
+                if ((occ & bit) != 0) break;
+                rr += dr[d];
+                cc += dc[d];
+            }
+        }
+        return attacks;
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
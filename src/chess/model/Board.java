@@ -1,249 +1,817 @@
 package chess.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Represents 8x8 chess board.
  FIXXED - Circular Recursion Via Move Verification for King Threat.
+ *
+ * Squares are indexed row-major as {@code r * 8 + c}, so square 0 is the top-left
+ * corner (row 0, black's back rank) and square 63 the bottom-right. Besides the
+ * shared {@link Piece} flyweights, the board keeps one bitboard per color and
+ * piece type plus occupancy masks, so scans only visit occupied squares and
+ * attack detection is a few {@link Attacks} table lookups and ANDs. Per-color
+ * piece lists and both king squares are kept up to date as pieces are placed
+ * and moved, so neither ever needs a board scan.
+ *
+ * Everything else about the position is plain board state: the side to move,
+ * the castling rights bitfield, the en passant square and a Zobrist key over all
+ * of them, updated incrementally as moves are made and unmade. Copying a board
+ * is therefore a handful of array copies. Run with {@code -ea} to have every
+ * move re-check the key against {@link #computeZobristKey()}.
  */
 public class Board implements Cloneable {
-    private final Piece[][] board;
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_B = FILE_A << 1;
+    static final long FILE_G = FILE_A << 6;
+    static final long FILE_H = FILE_A << 7;
+
+    /** Castling rights bits, lost once the king or the rook leaves (or is captured on) its home square. */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+    /** {@link #enPassantSquare()} when there is none. */
+    public static final int NO_SQUARE = -1;
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String PIECE_LETTERS = "pnbrqk";
+    private static final Piece[] FEN_PIECES = new Piece[128]; // by FEN letter, e.g. 'N' = white knight
+
+    // king and rook home squares: e8, a8, h8, e1, a1, h1
+    private static final long CASTLING_SQUARES = 1L << 4 | 1L | 1L << 7 | 1L << 60 | 1L << 56 | 1L << 63;
+    // rights kept when a move starts or ends on the square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    private static final Piece.Type[] PIECE_TYPES = Piece.Type.values();
+
+    // BETWEEN[a * 64 + b]: squares strictly between two aligned squares.
+    // LINE[a * 64 + b]: the whole rank, file or diagonal through both (0 if not aligned).
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    static {
+        for (int t = 0; t < 6; t++) {
+            char letter = PIECE_LETTERS.charAt(t);
+            FEN_PIECES[Character.toUpperCase(letter)] = Piece.of(PIECE_TYPES[t], Color.WHITE);
+            FEN_PIECES[letter] = Piece.of(PIECE_TYPES[t], Color.BLACK);
+        }
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[0] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[7] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[63] &= ~WHITE_KINGSIDE;
+
+        int[] dr = {-1, -1, -1, 0, 0, 1, 1, 1};
+        int[] dc = {-1, 0, 1, -1, 1, -1, 0, 1};
+        for (int sq = 0; sq < 64; sq++) {
+            for (int d = 0; d < 8; d++) {
+                long full = (1L << sq) | rayFrom(sq, dr[d], dc[d]) | rayFrom(sq, -dr[d], -dc[d]);
+                long between = 0;
+                int r = (sq >>> 3) + dr[d], c = (sq & 7) + dc[d];
+                while (inBounds(r, c)) {
+                    int t = r * 8 + c;
+                    BETWEEN[sq * 64 + t] = between;
+                    LINE[sq * 64 + t] = full;
+                    between |= 1L << t;
+                    r += dr[d];
+                    c += dc[d];
+                }
+            }
+        }
+    }
+
+    private static long rayFrom(int sq, int dr, int dc) {
+        long ray = 0;
+        int r = (sq >>> 3) + dr, c = (sq & 7) + dc;
+        while (inBounds(r, c)) {
+            ray |= 1L << (r * 8 + c);
+            r += dr;
+            c += dc;
+        }
+        return ray;
+    }
+
+    private final Piece[] squares = new Piece[64];
+    private final long[] pieces = new long[12];   // indexed by color * 6 + type
+    private final long[] occupancy = new long[2]; // indexed by color
+    private long occupied;
+    // piece lists: squares of each color's pieces at [color * 64, color * 64 + listSize[color])
+    private final int[] pieceList = new int[2 * 64];
+    private final int[] listIndex = new int[64]; // position of each occupied square in its color's list
+    private final int[] listSize = new int[2];
+    private final int[] kingSquares = {-1, -1};  // indexed by color, -1 if there is no king
+    private Color sideToMove = Color.WHITE;
+    private int castling;
+    private int enPassant = NO_SQUARE;
+    private int halfmoveClock;       // plies since the last capture or pawn move
+    private int fullmoveNumber = 1;  // starts at 1, incremented after Black's move
+    private long zobristKey;
+    // running totals of PieceSquareTables over all pieces, kept up to date by put()
+    private int midgame, endgame, phase;
+
+    // Undo stack for makeMove/unmakeMove, allocated on first use so clones stay cheap.
+    // Each entry packs from | to << 6 | castling rights << 12 | (en passant square + 1) << 16 | flags.
+    private static final int UNDO_CAPACITY = 256;
+    private static final int UNDO_CASTLE = 1 << 23;
+    private static final int UNDO_EN_PASSANT = 1 << 24;
+    private static final int UNDO_PROMOTION = 1 << 25;
+    private int[] undoInfo;
+    private Piece[] undoCaptured;
+    private long[] undoKey;
+    private int[] undoClock;
+    private int undoSize;
 
     public Board() {
-        board = new Piece[8][8];
         setupInitial();
     }
 
     private void setupInitial() {
         // Place pawns
         for (int c = 0; c < 8; c++) {
-            board[1][c] = new Pawn(Color.BLACK);
-            board[6][c] = new Pawn(Color.WHITE);
+            set(1, c, Piece.of(Piece.Type.PAWN, Color.BLACK));
+            set(6, c, Piece.of(Piece.Type.PAWN, Color.WHITE));
+        }
+
+        // Pieces, a to h file
+        Piece.Type[] backRank = {
+                Piece.Type.ROOK, Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.QUEEN,
+                Piece.Type.KING, Piece.Type.BISHOP, Piece.Type.KNIGHT, Piece.Type.ROOK
+        };
+        for (int c = 0; c < 8; c++) {
+            set(0, c, Piece.of(backRank[c], Color.BLACK));
+            set(7, c, Piece.of(backRank[c], Color.WHITE));
         }
 
-        // Rooks
-        board[0][0] = new Rook(Color.BLACK);
-        board[0][7] = new Rook(Color.BLACK);
-        board[7][0] = new Rook(Color.WHITE);
-        board[7][7] = new Rook(Color.WHITE);
+        setCastlingRights(ALL_CASTLING);
+    }
 
-        // Knights
-        board[0][1] = new Knight(Color.BLACK);
-        board[0][6] = new Knight(Color.BLACK);
-        board[7][1] = new Knight(Color.WHITE);
-        board[7][6] = new Knight(Color.WHITE);
+    /** A new board set up from a FEN (or the first four fields of an EPD line). */
+    public static Board fromFen(CharSequence fen) {
+        return new Board(fen);
+    }
 
-        // Bishops
-        board[0][2] = new Bishop(Color.BLACK);
-        board[0][5] = new Bishop(Color.BLACK);
-        board[7][2] = new Bishop(Color.WHITE);
-        board[7][5] = new Bishop(Color.WHITE);
+    private Board(CharSequence fen) {
+        loadFen(fen);
+    }
 
-        // Queens
-        board[0][3] = new Queen(Color.BLACK);
-        board[7][3] = new Queen(Color.WHITE);
+    /**
+     * Replaces this board's position with the one in {@code fen}, so one board
+     * can be reused for many positions. The halfmove clock and move number are
+     * optional (default 0 and 1); an en passant square is only kept if a pawn
+     * can actually capture there, and castling rights without their king and
+     * rook at home are dropped. The undo stack is cleared.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public void loadFen(CharSequence fen) {
+        clear();
+        int n = fen.length();
+        int i = 0;
 
-        // Kings
-        board[0][4] = new King(Color.BLACK);
-        board[7][4] = new King(Color.WHITE);
+        // piece placement, from row 0 (rank 8) down
+        int r = 0, c = 0;
+        for (; i < n && fen.charAt(i) != ' '; i++) {
+            char ch = fen.charAt(i);
+            if (ch == '/') {
+                if (c != 8) throw badFen(fen, "rank " + (8 - r) + " does not have 8 squares");
+                r++;
+                c = 0;
+            } else if (ch >= '1' && ch <= '8') {
+                c += ch - '0';
+            } else {
+                Piece p = ch < FEN_PIECES.length ? FEN_PIECES[ch] : null;
+                if (p == null) throw badFen(fen, "unknown piece '" + ch + "'");
+                if (r > 7 || c > 7) throw badFen(fen, "too many squares");
+                put(r * 8 + c, p);
+                c++;
+            }
+            if (c > 8) throw badFen(fen, "rank " + (8 - r) + " has more than 8 squares");
+        }
+        if (r != 7 || c != 8) throw badFen(fen, "expected 8 ranks of 8 squares");
+
+        // side to move
+        i = skipSpaces(fen, i);
+        if (i >= n) throw badFen(fen, "missing side to move");
+        char side = fen.charAt(i++);
+        if (side == 'b') {
+            sideToMove = Color.BLACK;
+            zobristKey ^= Zobrist.SIDE;
+        } else if (side != 'w') {
+            throw badFen(fen, "side to move must be 'w' or 'b'");
+        }
+
+        // castling rights
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        for (; i < n && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
+                case 'K': rights |= WHITE_KINGSIDE; break;
+                case 'Q': rights |= WHITE_QUEENSIDE; break;
+                case 'k': rights |= BLACK_KINGSIDE; break;
+                case 'q': rights |= BLACK_QUEENSIDE; break;
+                case '-': break;
+                default: throw badFen(fen, "bad castling rights");
+            }
+        }
+        setCastlingRights(rights);
+
+        // en passant square
+        i = skipSpaces(fen, i);
+        if (i < n && fen.charAt(i) != '-') {
+            if (i + 1 >= n) throw badFen(fen, "bad en passant square");
+            int file = fen.charAt(i) - 'a', rank = fen.charAt(i + 1) - '1';
+            int expectedRank = sideToMove == Color.WHITE ? 5 : 2;
+            if (file < 0 || file > 7 || rank != expectedRank) throw badFen(fen, "bad en passant square");
+            int ep = (7 - rank) * 8 + file;
+            if ((Attacks.PAWN[sideToMove.opposite().ordinal()][ep] & pieces(sideToMove, Piece.Type.PAWN)) != 0) {
+                setEnPassant(ep);
+            }
+            i += 2;
+        } else if (i < n) {
+            i++;
+        }
+
+        // optional move counters (absent in EPD)
+        i = skipSpaces(fen, i);
+        if (i < n && Character.isDigit(fen.charAt(i))) {
+            int start = i;
+            while (i < n && Character.isDigit(fen.charAt(i))) i++;
+            halfmoveClock = parseCount(fen, start, i);
+            i = skipSpaces(fen, i);
+            if (i < n && Character.isDigit(fen.charAt(i))) {
+                start = i;
+                while (i < n && Character.isDigit(fen.charAt(i))) i++;
+                fullmoveNumber = Math.max(1, parseCount(fen, start, i));
+            }
+        }
+        assert zobristKey == computeZobristKey() : "Zobrist key out of sync after FEN";
+        assert scoresInSync() : "Piece-square totals out of sync after FEN";
+    }
+
+    /** The position in Forsyth-Edwards Notation. */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        for (int r = 0; r < 8; r++) {
+            int empty = 0;
+            for (int c = 0; c < 8; c++) {
+                Piece p = squares[r * 8 + c];
+                if (p == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                char letter = PIECE_LETTERS.charAt(p.type().ordinal());
+                sb.append(p.color() == Color.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) sb.append(empty);
+            if (r < 7) sb.append('/');
+        }
+        sb.append(sideToMove == Color.WHITE ? " w " : " b ");
+        if (castling == 0) sb.append('-');
+        if ((castling & WHITE_KINGSIDE) != 0) sb.append('K');
+        if ((castling & WHITE_QUEENSIDE) != 0) sb.append('Q');
+        if ((castling & BLACK_KINGSIDE) != 0) sb.append('k');
+        if ((castling & BLACK_QUEENSIDE) != 0) sb.append('q');
+        sb.append(' ');
+        if (enPassant == NO_SQUARE) {
+            sb.append('-');
+        } else {
+            sb.append((char) ('a' + (enPassant & 7))).append((char) ('8' - (enPassant >>> 3)));
+        }
+        return sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
+    }
+
+    private void clear() {
+        Arrays.fill(squares, null);
+        Arrays.fill(pieces, 0);
+        Arrays.fill(occupancy, 0);
+        occupied = 0;
+        listSize[0] = listSize[1] = 0;
+        kingSquares[0] = kingSquares[1] = -1;
+        sideToMove = Color.WHITE;
+        castling = 0;
+        enPassant = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        zobristKey = 0;
+        midgame = endgame = phase = 0;
+        if (undoCaptured != null) Arrays.fill(undoCaptured, 0, undoSize, null);
+        undoSize = 0;
+    }
+
+    private static int skipSpaces(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static int parseCount(CharSequence s, int from, int to) {
+        if (to - from > 9) throw badFen(s, "move counter too large");
+        int v = 0;
+        for (int i = from; i < to; i++) v = v * 10 + (s.charAt(i) - '0');
+        return v;
+    }
+
+    private static IllegalArgumentException badFen(CharSequence fen, String why) {
+        return new IllegalArgumentException("Invalid FEN (" + why + "): " + fen);
     }
 
     public static boolean inBounds(int r, int c) {
         return r >= 0 && r < 8 && c >= 0 && c < 8;
     }
 
+    public static int square(int r, int c) {
+        return r * 8 + c;
+    }
+
     public Piece get(int r, int c) {
         if (!inBounds(r, c)) return null;
-        return board[r][c];
+        return squares[r * 8 + c];
+    }
+
+    public Piece get(int sq) {
+        return squares[sq];
     }
 
+    /**
+     * Puts a piece on a square (or clears it with {@code null}). Editing the board
+     * clears the en passant square and drops any castling right whose king or
+     * rook is no longer on its home square.
+     */
     public void set(int r, int c, Piece p) {
-        board[r][c] = p;
+        int sq = r * 8 + c;
+        put(sq, p);
+        setEnPassant(NO_SQUARE);
+        if ((CASTLING_SQUARES & (1L << sq)) != 0) setCastlingRights(castling);
+    }
+
+    private void put(int sq, Piece p) {
+        Piece old = squares[sq];
+        if (old != null) {
+            removeBits(old, sq);
+            zobristKey ^= Zobrist.piece(old, sq);
+        }
+        squares[sq] = p;
+        if (p != null) {
+            addBits(p, sq);
+            zobristKey ^= Zobrist.piece(p, sq);
+        }
+    }
+
+    private void addBits(Piece p, int sq) {
+        long bit = 1L << sq;
+        int color = p.color().ordinal();
+        int index = p.index;
+        pieces[index] |= bit;
+        occupancy[color] |= bit;
+        occupied |= bit;
+        midgame += PieceSquareTables.MIDGAME[index * 64 + sq];
+        endgame += PieceSquareTables.ENDGAME[index * 64 + sq];
+        phase += PieceSquareTables.phase(p);
+        listIndex[sq] = listSize[color];
+        pieceList[color * 64 + listSize[color]++] = sq;
+        if (index == color * 6 + 5) kingSquares[color] = Long.numberOfTrailingZeros(pieces[index]);
+    }
+
+    private void removeBits(Piece p, int sq) {
+        long bit = ~(1L << sq);
+        int color = p.color().ordinal();
+        int index = p.index;
+        pieces[index] &= bit;
+        occupancy[color] &= bit;
+        occupied &= bit;
+        midgame -= PieceSquareTables.MIDGAME[index * 64 + sq];
+        endgame -= PieceSquareTables.ENDGAME[index * 64 + sq];
+        phase -= PieceSquareTables.phase(p);
+        // move the list's last square into the freed slot
+        int last = pieceList[color * 64 + --listSize[color]];
+        pieceList[color * 64 + listIndex[sq]] = last;
+        listIndex[last] = listIndex[sq];
+        if (index == color * 6 + 5) { // king
+            kingSquares[color] = pieces[index] == 0 ? -1 : Long.numberOfTrailingZeros(pieces[index]);
+        }
+    }
+
+    public Color sideToMove() {
+        return sideToMove;
+    }
+
+    /** Castling rights as a combination of the {@code WHITE_KINGSIDE}.. bits. */
+    public int castlingRights() {
+        return castling;
+    }
+
+    /**
+     * Sets the castling rights, e.g. when setting up a position. Rights whose king
+     * and rook are not both on their home squares are dropped.
+     */
+    public void setCastlingRights(int rights) {
+        if (!homePiece(60, Piece.Type.KING, Color.WHITE)) rights &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        if (!homePiece(63, Piece.Type.ROOK, Color.WHITE)) rights &= ~WHITE_KINGSIDE;
+        if (!homePiece(56, Piece.Type.ROOK, Color.WHITE)) rights &= ~WHITE_QUEENSIDE;
+        if (!homePiece(4, Piece.Type.KING, Color.BLACK)) rights &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        if (!homePiece(7, Piece.Type.ROOK, Color.BLACK)) rights &= ~BLACK_KINGSIDE;
+        if (!homePiece(0, Piece.Type.ROOK, Color.BLACK)) rights &= ~BLACK_QUEENSIDE;
+        rights &= ALL_CASTLING;
+        zobristKey ^= Zobrist.CASTLING[castling] ^ Zobrist.CASTLING[rights];
+        castling = rights;
+    }
+
+    private boolean homePiece(int sq, Piece.Type type, Color color) {
+        return squares[sq] == Piece.of(type, color);
+    }
+
+    /**
+     * Square a pawn can be captured on en passant, or {@link #NO_SQUARE}. It is
+     * only set after a double push next to an enemy pawn, so positions that differ
+     * only by an unusable en passant square share a Zobrist key.
+     */
+    public int enPassantSquare() {
+        return enPassant;
+    }
+
+    private void setEnPassant(int sq) {
+        if (enPassant != NO_SQUARE) zobristKey ^= Zobrist.EN_PASSANT[enPassant & 7];
+        enPassant = sq;
+        if (sq != NO_SQUARE) zobristKey ^= Zobrist.EN_PASSANT[sq & 7];
+    }
+
+    /** Plies since the last capture or pawn move, for the fifty-move rule. */
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /** Move number as in FEN: starts at 1 and goes up after each Black move. */
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /** 64-bit Zobrist key of the position, kept up to date incrementally. */
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    /** Recomputes the Zobrist key from scratch; must always equal {@link #zobristKey()}. */
+    public long computeZobristKey() {
+        long key = 0;
+        for (long bits = occupied; bits != 0; bits &= bits - 1) {
+            int sq = Long.numberOfTrailingZeros(bits);
+            key ^= Zobrist.piece(squares[sq], sq);
+        }
+        if (sideToMove == Color.BLACK) key ^= Zobrist.SIDE;
+        if (enPassant != NO_SQUARE) key ^= Zobrist.EN_PASSANT[enPassant & 7];
+        return key ^ Zobrist.CASTLING[castling];
+    }
+
+    /**
+     * Material plus middlegame piece-square values of all pieces, White's minus
+     * Black's (see {@link PieceSquareTables}). Like the Zobrist key it is updated
+     * on every change to the board instead of being recomputed.
+     */
+    public int midgameScore() {
+        return midgame;
+    }
+
+    /** Like {@link #midgameScore()} with the endgame tables. */
+    public int endgameScore() {
+        return endgame;
+    }
+
+    /**
+     * Game phase from the pieces left: {@link PieceSquareTables#MAX_PHASE} at the
+     * start (more after promotions), 0 with only kings and pawns.
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * Recomputes {@link #midgameScore()}, {@link #endgameScore()} and
+     * {@link #phase()} from the squares; returns whether all three match.
+     */
+    public boolean scoresInSync() {
+        int mg = 0, eg = 0, ph = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            Piece p = squares[sq];
+            if (p == null) continue;
+            mg += PieceSquareTables.midgame(p, sq);
+            eg += PieceSquareTables.endgame(p, sq);
+            ph += PieceSquareTables.phase(p);
+        }
+        return mg == midgame && eg == endgame && ph == phase;
+    }
+
+    /** Bitboard of the given color's pieces of the given type. */
+    public long pieces(Color color, Piece.Type type) {
+        return pieces[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    /** Bitboard of all squares occupied by the given color. */
+    public long occupancy(Color color) {
+        return occupancy[color.ordinal()];
+    }
+
+    /** Bitboard of all occupied squares. */
+    public long occupancy() {
+        return occupied;
     }
 
     /**
      * Apply a move to this board. Note: no validation here.
      */
     public void applyMove(Move m) {
-        Piece p = get(m.fromRow, m.fromCol);
-        if (p == null) return;
+        if (get(m.fromRow, m.fromCol) == null) return;
+        doMove(m.fromRow * 8 + m.fromCol, m.toRow * 8 + m.toCol, promotionOf(m), false);
+    }
+
+    /**
+     * Apply a move and remember how to take it back with {@link #unmakeMove()}.
+     * The undo stack is preallocated, so a make/unmake pair does not allocate.
+     * Moves applied with
+     * {@link #applyMove(Move)} are permanent and cannot be unmade.
+     */
+    public void makeMove(Move m) {
+        if (get(m.fromRow, m.fromCol) == null) {
+            throw new IllegalArgumentException("No piece to move for " + m);
+        }
+        doMove(m.fromRow * 8 + m.fromCol, m.toRow * 8 + m.toCol, promotionOf(m), true);
+    }
+
+    /** {@link #makeMove(Move)} for a packed move from {@link MoveGenerator}; allocates nothing. */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        if (squares[from] == null) {
+            throw new IllegalArgumentException("No piece to move for " + Move.toLongAlgebraic(move));
+        }
+        doMove(from, Move.to(move), Move.promotion(move), true);
+    }
+
+    private static int promotionOf(Move m) {
+        return m.promotion == null ? 0 : m.promotion.ordinal();
+    }
+
+    /**
+     * Take back the last move made with {@link #makeMove(Move)}, restoring the
+     * captured piece, a castling rook, a promoted pawn, the castling rights and
+     * the en passant square.
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) throw new IllegalStateException("No move to unmake");
+        int i = --undoSize;
+        int info = undoInfo[i];
+        int from = info & 63;
+        int to = (info >>> 6) & 63;
+        Piece p = squares[to];
+        if ((info & UNDO_PROMOTION) != 0) p = Piece.of(Piece.Type.PAWN, p.color());
+
+        if ((info & UNDO_CASTLE) != 0) {
+            int row = to & ~7;
+            int rookFrom = (to & 7) == 6 ? row + 7 : row;
+            int rookTo = (to & 7) == 6 ? row + 5 : row + 3;
+            Piece rook = squares[rookTo];
+            put(rookTo, null);
+            put(rookFrom, rook);
+        }
+
+        if ((info & UNDO_EN_PASSANT) != 0) {
+            put(to, null);
+            put(to + (p.color() == Color.WHITE ? 8 : -8), undoCaptured[i]);
+        } else {
+            put(to, undoCaptured[i]);
+        }
+        put(from, p);
+        undoCaptured[i] = null;
+
+        sideToMove = sideToMove.opposite();
+        if (sideToMove == Color.BLACK) fullmoveNumber--;
+        castling = (info >>> 12) & 15;
+        enPassant = ((info >>> 16) & 127) - 1;
+        halfmoveClock = undoClock[i];
+        zobristKey = undoKey[i];
+        assert zobristKey == computeZobristKey() : "Zobrist key out of sync after unmake";
+        assert scoresInSync() : "Piece-square totals out of sync after unmake";
+    }
+
+    private void doMove(int from, int to, int promotion, boolean record) {
+        int fromRow = from >>> 3, toCol = to & 7, toRow = to >>> 3;
+        Piece p = squares[from];
+        Piece.Type type = p.type();
+        long keyBefore = zobristKey;
+        int info = from | to << 6 | castling << 12 | (enPassant + 1) << 16;
+        Piece captured = squares[to];
+
         // handle castling
-        if (p instanceof King && Math.abs(m.toCol - m.fromCol) == 2) {
+        if (type == Piece.Type.KING && Math.abs(toCol - (from & 7)) == 2) {
             // king-side or queen-side
-            if (m.toCol == 6) { // king-side
-                Piece rook = get(m.fromRow, 7);
-                set(m.fromRow, 5, rook);
-                set(m.fromRow, 7, null);
-                if (rook != null) rook.setHasMoved(true);
-            } else if (m.toCol == 2) { // queen-side
-                Piece rook = get(m.fromRow, 0);
-                set(m.fromRow, 3, rook);
-                set(m.fromRow, 0, null);
-                if (rook != null) rook.setHasMoved(true);
+            int rookFrom = -1, rookTo = -1;
+            if (toCol == 6) { // king-side
+                rookFrom = fromRow * 8 + 7;
+                rookTo = fromRow * 8 + 5;
+            } else if (toCol == 2) { // queen-side
+                rookFrom = fromRow * 8;
+                rookTo = fromRow * 8 + 3;
+            }
+            Piece rook = rookFrom < 0 ? null : squares[rookFrom];
+            if (rook != null) {
+                info |= UNDO_CASTLE;
+                put(rookFrom, null);
+                put(rookTo, rook);
             }
         }
 
-        set(m.toRow, m.toCol, p);
-        set(m.fromRow, m.fromCol, null);
-        p.setHasMoved(true);
-
-        // Handle pawn promotion
-        if (p instanceof Pawn) {
-            if ((p.color() == Color.WHITE && m.toRow == 0) ||
-                    (p.color() == Color.BLACK && m.toRow == 7)) {
-                Piece promoted;
-                if (m.promotion == null) {
-                    promoted = new Queen(p.color()); // default to queen
-                } else {
-                    promoted = pieceForType(m.promotion, p.color());
-                }
-                set(m.toRow, m.toCol, promoted);
+        Piece landed = p;
+        if (type == Piece.Type.PAWN) {
+            // en passant: the captured pawn is beside the target square, not on it
+            if (to == enPassant) {
+                int capturedSq = to + (p.color() == Color.WHITE ? 8 : -8);
+                captured = squares[capturedSq];
+                put(capturedSq, null);
+                info |= UNDO_EN_PASSANT;
+            }
+            // Handle pawn promotion (default to queen)
+            if ((p.color() == Color.WHITE && toRow == 0) || (p.color() == Color.BLACK && toRow == 7)) {
+                landed = Piece.of(promotion == 0 ? Piece.Type.QUEEN : PIECE_TYPES[promotion], p.color());
+                info |= UNDO_PROMOTION;
             }
         }
+
+        if (record) pushUndo(captured, info, keyBefore);
+        halfmoveClock = (type == Piece.Type.PAWN || captured != null) ? 0 : halfmoveClock + 1;
+        if (sideToMove == Color.BLACK) fullmoveNumber++;
+        put(to, landed);
+        put(from, null);
+
+        int ep = NO_SQUARE;
+        if (type == Piece.Type.PAWN && Math.abs(to - from) == 16) {
+            int skipped = (from + to) >>> 1;
+            Color them = p.color().opposite();
+            if ((Attacks.PAWN[p.color().ordinal()][skipped] & pieces(them, Piece.Type.PAWN)) != 0) ep = skipped;
+        }
+        setEnPassant(ep);
+
+        int rights = castling & CASTLING_MASK[from] & CASTLING_MASK[to];
+        if (rights != castling) {
+            zobristKey ^= Zobrist.CASTLING[castling] ^ Zobrist.CASTLING[rights];
+            castling = rights;
+        }
+
+        sideToMove = sideToMove.opposite();
+        zobristKey ^= Zobrist.SIDE;
+        assert zobristKey == computeZobristKey() : "Zobrist key out of sync after move " + from + "-" + to;
+        assert scoresInSync() : "Piece-square totals out of sync after move " + from + "-" + to;
     }
 
-    private Piece pieceForType(Piece.Type type, Color color) {
-        switch (type) {
-            case PAWN: return new Pawn(color);
-            case KNIGHT: return new Knight(color);
-            case BISHOP: return new Bishop(color);
-            case ROOK: return new Rook(color);
-            case QUEEN: return new Queen(color);
-            case KING: return new King(color);
-            default: throw new IllegalArgumentException("Unknown type");
+    private void pushUndo(Piece captured, int info, long key) {
+        if (undoInfo == null) {
+            undoInfo = new int[UNDO_CAPACITY];
+            undoCaptured = new Piece[UNDO_CAPACITY];
+            undoKey = new long[UNDO_CAPACITY];
+            undoClock = new int[UNDO_CAPACITY];
+        } else if (undoSize == undoInfo.length) {
+            int n = undoSize * 2;
+            undoInfo = Arrays.copyOf(undoInfo, n);
+            undoCaptured = Arrays.copyOf(undoCaptured, n);
+            undoKey = Arrays.copyOf(undoKey, n);
+            undoClock = Arrays.copyOf(undoClock, n);
         }
+        undoInfo[undoSize] = info;
+        undoCaptured[undoSize] = captured;
+        undoKey[undoSize] = key;
+        undoClock[undoSize] = halfmoveClock;
+        undoSize++;
     }
 
     @Override
     public Board clone() {
-        Board b = new Board(false);
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = this.get(r, c);
-                if (p != null) {
-                    b.set(r, c, p.clone());
-                } else {
-                    b.set(r, c, null);
-                }
-            }
-        }
-        return b;
+        return new Board(this);
     }
 
-    // Private constructor for cloning
-    private Board(boolean empty) {
-        if (empty) {
-            board = new Piece[8][8];
-        } else {
-            board = new Piece[8][8];
-        }
+    // Copy of the position only: the undo stack is not carried over
+    private Board(Board other) {
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        occupied = other.occupied;
+        System.arraycopy(other.pieceList, 0, pieceList, 0, pieceList.length);
+        System.arraycopy(other.listIndex, 0, listIndex, 0, listIndex.length);
+        System.arraycopy(other.listSize, 0, listSize, 0, listSize.length);
+        System.arraycopy(other.kingSquares, 0, kingSquares, 0, kingSquares.length);
+        sideToMove = other.sideToMove;
+        castling = other.castling;
+        enPassant = other.enPassant;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        zobristKey = other.zobristKey;
+        midgame = other.midgame;
+        endgame = other.endgame;
+        phase = other.phase;
     }
 
     public int[] findKing(Color color) {
-        for (int r = 0; r < 8; r++)
-            for (int c = 0; c < 8; c++) {
-                Piece p = get(r, c);
-                if (p instanceof King && p.color() == color) {
-                    return new int[]{r, c};
-                }
-            }
-        return null;
+        int sq = kingSquare(color);
+        if (sq < 0) return null;
+        return new int[]{sq >>> 3, sq & 7};
+    }
+
+    /** Square index of the given color's king, or -1 if there is none. */
+    public int kingSquare(Color color) {
+        return kingSquares[color.ordinal()];
     }
 
     public boolean isKingInCheck(Color color) {
-        int[] pos = findKing(color);
-        if (pos == null) return false; // should not happen
-        return isSquareAttacked(pos[0], pos[1], color.opposite());
+        int sq = kingSquare(color);
+        if (sq < 0) return false; // should not happen
+        return isSquareAttacked(sq, color.opposite());
     }
 
     /**
      * Was Causing Circular Recursion ( Now Fixed )
      */
     public boolean isSquareAttacked(int r, int c, Color byColor) {
-        for (int rr = 0; rr < 8; rr++) {
-            for (int cc = 0; cc < 8; cc++) {
-                Piece p = get(rr, cc);
-                if (p == null || p.color() != byColor) continue;
-                if (pieceAttacksSquare(p, rr, cc, r, c)) return true;
-            }
-        }
-        return false;
+        return isSquareAttacked(r * 8 + c, byColor);
     }
 
-    private boolean pieceAttacksSquare(Piece p, int pr, int pc, int tr, int tc) {
-        int dr = tr - pr;
-        int dc = tc - pc;
+    /**
+     * Attack detection works backwards from the target square: a piece of type T
+     * attacks {@code sq} exactly when a T placed on {@code sq} would attack it.
+     */
+    public boolean isSquareAttacked(int sq, Color byColor) {
+        int by = byColor.ordinal() * 6;
+        if ((Attacks.PAWN[byColor.opposite().ordinal()][sq] & pieces[by]) != 0) return true;
+        if ((Attacks.KNIGHT[sq] & pieces[by + 1]) != 0) return true;
+        if ((Attacks.KING[sq] & pieces[by + 5]) != 0) return true;
+        long queens = pieces[by + 4];
+        if ((Attacks.bishop(sq, occupied) & (pieces[by + 2] | queens)) != 0) return true;
+        return (Attacks.rook(sq, occupied) & (pieces[by + 3] | queens)) != 0;
+    }
 
-        switch (p.type()) {
-            case PAWN: {
-                int dir = (p.color() == Color.WHITE) ? -1 : 1;
-                // pawns attack one square diagonally forward
-                if (dr == dir && Math.abs(dc) == 1) return true;
-                return false;
-            }
-            case KNIGHT: {
-                int[][] deltas = {{-2,-1},{-2,1},{-1,-2},{-1,2},{1,-2},{1,2},{2,-1},{2,1}};
-                for (int[] d : deltas) {
-                    if (dr == d[0] && dc == d[1]) return true;
-                }
-                return false;
-            }
-            case BISHOP: {
-                if (Math.abs(dr) != Math.abs(dc) || dr == 0) return false;
-                int stepR = Integer.signum(dr);
-                int stepC = Integer.signum(dc);
-                int rr = pr + stepR, cc = pc + stepC;
-                while (rr != tr || cc != tc) {
-                    if (get(rr, cc) != null) return false;
-                    rr += stepR; cc += stepC;
-                }
-                return true;
-            }
-            case ROOK: {
-                if (dr != 0 && dc != 0) return false;
-                int stepR = Integer.signum(dr);
-                int stepC = Integer.signum(dc);
-                // if both zero it is same square (not an attack)
-                if (dr == 0 && dc == 0) return false;
-                int rr = pr + stepR, cc = pc + stepC;
-                while (rr != tr || cc != tc) {
-                    if (get(rr, cc) != null) return false;
-                    rr += stepR; cc += stepC;
-                }
-                return true;
-            }
-            case QUEEN: {
-                // combine rook and bishop
-                if (dr == 0 && dc == 0) return false;
-                if (Math.abs(dr) == Math.abs(dc) || dr == 0 || dc == 0) {
-                    int stepR = Integer.signum(dr);
-                    int stepC = Integer.signum(dc);
-                    int rr = pr + stepR, cc = pc + stepC;
-                    while (rr != tr || cc != tc) {
-                        if (get(rr, cc) != null) return false;
-                        rr += stepR; cc += stepC;
-                    }
-                    return true;
-                }
-                return false;
-            }
-            case KING: {
-                // King attacks adjacent squares (no castling here)
-                return Math.max(Math.abs(dr), Math.abs(dc)) == 1;
-            }
-            default:
-                return false;
+    /** Bitboard of {@code byColor}'s pieces attacking {@code sq} with the given occupancy. */
+    long attackersTo(int sq, Color byColor, long occ) {
+        int by = byColor.ordinal() * 6;
+        long queens = pieces[by + 4];
+        return (Attacks.PAWN[byColor.opposite().ordinal()][sq] & pieces[by])
+                | (Attacks.KNIGHT[sq] & pieces[by + 1])
+                | (Attacks.KING[sq] & pieces[by + 5])
+                | (Attacks.bishop(sq, occ) & (pieces[by + 2] | queens))
+                | (Attacks.rook(sq, occ) & (pieces[by + 3] | queens));
+    }
+
+    static long between(int a, int b) {
+        return BETWEEN[a * 64 + b];
+    }
+
+    static long line(int a, int b) {
+        return LINE[a * 64 + b];
+    }
+
+    // Set-wise attacks of several pieces at once; single squares use the Attacks tables.
+    static long pawnAttacks(long pawns, Color color) {
+        if (color == Color.WHITE) {
+            return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
         }
+        return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+    }
+
+    static long knightAttacks(long knights) {
+        long l1 = (knights >>> 1) & ~FILE_H;
+        long l2 = (knights >>> 2) & ~(FILE_G | FILE_H);
+        long r1 = (knights << 1) & ~FILE_A;
+        long r2 = (knights << 2) & ~(FILE_A | FILE_B);
+        long h1 = l1 | r1;
+        long h2 = l2 | r2;
+        return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+    }
+
+    static long kingAttacks(long kings) {
+        long row = kings | ((kings << 1) & ~FILE_A) | ((kings >>> 1) & ~FILE_H);
+        return (row | (row << 8) | (row >>> 8)) & ~kings;
+    }
+
+    /** Number of pieces the given color has on the board. */
+    public int pieceCount(Color color) {
+        return listSize[color.ordinal()];
+    }
+
+    /**
+     * Square of the given color's {@code i}-th piece, for {@code 0 <= i < pieceCount(color)}.
+     * The order is arbitrary and changes as pieces move.
+     */
+    public int pieceSquare(Color color, int i) {
+        return pieceList[color.ordinal() * 64 + i];
     }
 
     public List<int[]> positionsOf(Color color) {
-        List<int[]> out = new ArrayList<>();
-        for (int r = 0; r < 8; r++)
-            for (int c = 0; c < 8; c++) {
-                Piece p = get(r, c);
-                if (p != null && p.color() == color) out.add(new int[]{r, c});
-            }
+        int c = color.ordinal();
+        List<int[]> out = new ArrayList<>(listSize[c]);
+        for (int i = 0; i < listSize[c]; i++) {
+            int sq = pieceList[c * 64 + i];
+            out.add(new int[]{sq >>> 3, sq & 7});
+        }
         return out;
     }
-}
\ No newline at end of file
+}
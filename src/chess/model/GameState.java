@@ -1,47 +1,237 @@
 package chess.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * A game in progress: the board, the side to move and the move history.
+ *
+ * The legal moves and the outcome of the current position are computed once,
+ * the first time either is asked for, and kept until the next move, so the GUI
+ * (or a server) can query them as often as it likes. Changing {@link #board()}
+ * directly bypasses this cache.
+ *
+ * Draws by threefold repetition, the fifty-move rule and insufficient material
+ * are reported as {@link Status#DRAW}. Repetitions are found from a ring buffer
+ * of the positions' Zobrist keys, scanned back only as far as the last capture
+ * or pawn move (the board's halfmove clock), since no earlier position can come
+ * back; the check costs the same however long the game is. A drawn game still
+ * accepts moves, as players who do not claim a draw may play on.
+ */
 public class GameState {
+    public enum Status {
+        ONGOING, CHECK, CHECKMATE, STALEMATE, DRAW;
+
+        public boolean isGameOver() {
+            return this == CHECKMATE || this == STALEMATE || this == DRAW;
+        }
+    }
+
+    public enum DrawReason {
+        THREEFOLD_REPETITION, FIFTY_MOVE_RULE, INSUFFICIENT_MATERIAL
+    }
+
+    /** Fifty moves by each side without a capture or pawn move. */
+    private static final int FIFTY_MOVE_PLIES = 100;
+    /**
+     * Positions kept for repetition checks, a power of two above the fifty-move
+     * limit: by the time older positions are overwritten the game is drawn anyway.
+     */
+    private static final int KEY_HISTORY = 128;
+    private static final long LIGHT_SQUARES;
+
+    static {
+        long light = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (((sq >>> 3) + (sq & 7)) % 2 == 0) light |= 1L << sq; // a8 is light
+        }
+        LIGHT_SQUARES = light;
+    }
+
     private Board board;
     private Color toMove;
     private final java.util.List<Move> history = new java.util.ArrayList<>();
 
+    // per-ply cache: the packed moves are generated at most once per position,
+    // the Move objects and the status only when asked for
+    private final MoveList moves = new MoveList();
+    private boolean movesValid;
+    private List<Move> legalMoves;
+    private Status status;
+    private DrawReason drawReason;
+
+    // Zobrist key of every position of the game, the current one at keys[plies % KEY_HISTORY]
+    private final long[] keys = new long[KEY_HISTORY];
+    private int plies;
+
     public GameState() {
         board = new Board();
         toMove = Color.WHITE;
+        keys[0] = board.zobristKey();
+    }
+
+    /**
+     * A game starting from the position in {@code fen}.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public GameState(String fen) {
+        board = Board.fromFen(fen);
+        toMove = board.sideToMove();
+        keys[0] = board.zobristKey();
     }
 
     public Board board() { return board; }
     public Color toMove() { return toMove; }
     public List<Move> history() { return history; }
+    /** Zobrist key of the current position (pieces, side to move, castling rights, en passant). */
+    public long positionKey() { return board.zobristKey(); }
+    public String toFen() { return board.toFen(); }
+
+    /** Legal moves of the side to move, as an unmodifiable list. */
+    public List<Move> legalMoves() {
+        if (legalMoves == null) {
+            MoveList list = packedMoves();
+            List<Move> out = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) out.add(Move.decode(list.get(i)));
+            legalMoves = Collections.unmodifiableList(out);
+        }
+        return legalMoves;
+    }
+
+    private MoveList packedMoves() {
+        if (!movesValid) {
+            MoveGenerator.legalMoves(board, toMove, moves);
+            movesValid = true;
+        }
+        return moves;
+    }
+
+    /** Legal moves of the piece on (r, c); empty unless it belongs to the side to move. */
+    public List<Move> legalMovesFrom(int r, int c) {
+        List<Move> out = new ArrayList<>();
+        for (Move m : legalMoves()) {
+            if (m.fromRow == r && m.fromCol == c) out.add(m);
+        }
+        return out;
+    }
+
+    /**
+     * The legal move written as SAN (e.g. {@code Nbd7}, {@code O-O}), matched
+     * against the cached legal moves, ready for {@link #makeMove}.
+     *
+     * @throws IllegalArgumentException if it is not a legal move here
+     */
+    public Move moveFromSan(CharSequence san) {
+        return Move.decode(San.parse(board, packedMoves(), san));
+    }
+
+    /** Outcome of the current position for the side to move. Checkmate and stalemate take precedence over a draw. */
+    public Status status() {
+        if (status == null) {
+            boolean check = board.isKingInCheck(toMove);
+            drawReason = null;
+            if (packedMoves().isEmpty()) {
+                status = check ? Status.CHECKMATE : Status.STALEMATE;
+            } else if ((drawReason = findDrawReason()) != null) {
+                status = Status.DRAW;
+            } else {
+                status = check ? Status.CHECK : Status.ONGOING;
+            }
+        }
+        return status;
+    }
+
+    /** Why the game is drawn when {@link #status()} is {@link Status#DRAW}, else null. */
+    public DrawReason drawReason() {
+        status();
+        return drawReason;
+    }
+
+    private DrawReason findDrawReason() {
+        if (board.halfmoveClock() >= FIFTY_MOVE_PLIES) return DrawReason.FIFTY_MOVE_RULE;
+        if (repetitions() >= 2) return DrawReason.THREEFOLD_REPETITION;
+        if (insufficientMaterial()) return DrawReason.INSUFFICIENT_MATERIAL;
+        return null;
+    }
+
+    /**
+     * How many times the current position occurred before in this game (same
+     * pieces, side to move, castling rights and en passant square). Only
+     * positions since the last capture or pawn move are compared.
+     */
+    public int repetitions() {
+        int reversible = Math.min(Math.min(board.halfmoveClock(), plies), KEY_HISTORY - 1);
+        long key = keys[plies % KEY_HISTORY];
+        int count = 0;
+        // the same side is to move every second ply, and a position cannot come back after only two
+        for (int back = 4; back <= reversible; back += 2) {
+            if (keys[(plies - back) % KEY_HISTORY] == key) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Neither side can ever mate: kings with at most one knight, or with bishops
+     * that all stand on squares of one colour.
+     */
+    private boolean insufficientMaterial() {
+        for (Color c : Color.values()) {
+            if ((board.pieces(c, Piece.Type.PAWN) | board.pieces(c, Piece.Type.ROOK)
+                    | board.pieces(c, Piece.Type.QUEEN)) != 0) return false;
+        }
+        long knights = board.pieces(Color.WHITE, Piece.Type.KNIGHT) | board.pieces(Color.BLACK, Piece.Type.KNIGHT);
+        long bishops = board.pieces(Color.WHITE, Piece.Type.BISHOP) | board.pieces(Color.BLACK, Piece.Type.BISHOP);
+        if (knights == 0) return (bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0;
+        return bishops == 0 && Long.bitCount(knights) == 1;
+    }
 
     /**
     *TRIES TO MAKE MOVE IF LEGAL
+     * A move without a promotion piece promotes to a queen.
      * */
     public boolean makeMove(Move m) {
         Piece p = board.get(m.fromRow, m.fromCol);
         if (p == null || p.color() != toMove) return false;
-        if (!MoveGenerator.isLegal(board, m, toMove)) return false;
-        board.applyMove(m);
+        if (!isLegal(m)) return false;
+        board.applyMove(m); // also keeps the halfmove clock used by the draw rules
         history.add(m);
+        plies++;
+        keys[plies % KEY_HISTORY] = board.zobristKey();
         toMove = toMove.opposite();
+        movesValid = false;
+        legalMoves = null;
+        status = null;
         return true;
     }
 
+    private boolean isLegal(Move m) {
+        int code = m.code();
+        int asQueen = code | Piece.Type.QUEEN.ordinal() << 12;
+        MoveList list = packedMoves();
+        for (int i = 0; i < list.size(); i++) {
+            int legal = Move.code(list.get(i));
+            if (legal == code || (m.promotion == null && legal == asQueen)) return true;
+        }
+        return false;
+    }
+
     public boolean isInCheck(Color color) {
+        if (color == toMove) {
+            Status s = status();
+            if (s != Status.DRAW) return s == Status.CHECK || s == Status.CHECKMATE;
+        }
         return board.isKingInCheck(color);
     }
 
     public boolean isCheckmate(Color color) {
-        if (!isInCheck(color)) return false;
-        List<Move> moves = MoveGenerator.legalMoves(board, color);
-        return moves.isEmpty();
+        if (color == toMove) return status() == Status.CHECKMATE;
+        return board.isKingInCheck(color) && MoveGenerator.legalMoves(board, color).isEmpty();
     }
 
     public boolean isStalemate(Color color) {
-        if (isInCheck(color)) return false;
-        List<Move> moves = MoveGenerator.legalMoves(board, color);
-        return moves.isEmpty();
+        if (color == toMove) return status() == Status.STALEMATE;
+        return !board.isKingInCheck(color) && MoveGenerator.legalMoves(board, color).isEmpty();
     }
-}
\ No newline at end of file
+}
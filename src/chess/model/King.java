@@ -4,7 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class King extends Piece {
-    public King(Color color) { super(color); }
+    King(Color color) { super(color); }
 
     @Override
     public Type type() { return Type.KING; }
@@ -25,13 +25,16 @@ public class King extends Piece {
         }
 
         // Castle
-        if (!hasMoved && !board.isKingInCheck(this.color)) {
+        int rights = board.castlingRights();
+        int kingSide = color == Color.WHITE ? Board.WHITE_KINGSIDE : Board.BLACK_KINGSIDE;
+        int queenSide = color == Color.WHITE ? Board.WHITE_QUEENSIDE : Board.BLACK_QUEENSIDE;
+        if ((rights & (kingSide | queenSide)) != 0 && c == 4 && !board.isKingInCheck(this.color)) {
             // King-side
-            if (canCastle(board, r, c, 7, 6, 5)) {
+            if ((rights & kingSide) != 0 && canCastle(board, r, c, 7, 6, 5)) {
                 moves.add(new Move(r, c, r, 6));
             }
             // Queen-side
-            if (canCastle(board, r, c, 0, 2, 3)) {
+            if ((rights & queenSide) != 0 && canCastle(board, r, c, 0, 2, 3)) {
                 moves.add(new Move(r, c, r, 2));
             }
         }
@@ -41,7 +44,7 @@ public class King extends Piece {
 
     private boolean canCastle(Board board, int r, int c, int rookCol, int targetCol, int betweenCol) {
         Piece rook = board.get(r, rookCol);
-        if (!(rook instanceof Rook) || rook.color() != this.color || rook.hasMoved()) return false;
+        if (!(rook instanceof Rook) || rook.color() != this.color) return false;
         int step = (rookCol > c) ? 1 : -1;
         // Not Blocked.
         for (int col = c + step; col != rookCol; col += step) {
@@ -1,6 +1,20 @@
 package chess.model;
 
+/**
+ * A move as an object, used by the GUI, game history and other callers that want
+ * readable fields. Move generation and search use the packed {@code int} form
+ * instead (see {@link #encode}), which needs no allocation:
+ * from 0-5 | to 6-11 | promotion type ordinal 12-14 (0 = none) | flags 16+.
+ * The low 15 bits identify the move ({@link #code(int)}); flags only describe it.
+ */
 public class Move {
+    public static final int FLAG_CAPTURE = 1 << 16;
+    public static final int FLAG_CASTLE = 1 << 17;
+    public static final int FLAG_DOUBLE_PUSH = 1 << 18;
+    public static final int FLAG_EN_PASSANT = 1 << 19;
+    private static final int CODE_MASK = 0x7FFF;
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+
     public final int fromRow, fromCol;
     public final int toRow, toCol;
     public final Piece.Type promotion; // null if not a promotion
@@ -17,6 +31,76 @@ public class Move {
         this.promotion = promotion;
     }
 
+    public static int encode(int from, int to, int promotion, int flags) {
+        return from | to << 6 | promotion << 12 | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /** Promotion piece type ordinal, or 0 if the move is not a promotion. */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & FLAG_CAPTURE) != 0;
+    }
+
+    /** The move without its flags: from, to and promotion only. */
+    public static int code(int move) {
+        return move & CODE_MASK;
+    }
+
+    /** Packed identity of this move, comparable with {@link #code(int)} of an encoded move. */
+    public int code() {
+        int promo = promotion == null ? 0 : promotion.ordinal();
+        return (fromRow * 8 + fromCol) | (toRow * 8 + toCol) << 6 | promo << 12;
+    }
+
+    /** The object view of a packed move. */
+    public static Move decode(int move) {
+        int from = from(move), to = to(move), promo = promotion(move);
+        return new Move(from >>> 3, from & 7, to >>> 3, to & 7, promo == 0 ? null : TYPES[promo]);
+    }
+
+    public static String toLongAlgebraic(int move) {
+        return decode(move).toLongAlgebraic();
+    }
+
+    /** Coordinate notation such as {@code e2e4} or {@code e7e8q}, as used by perft divide and UCI. */
+    public String toLongAlgebraic() {
+        StringBuilder sb = new StringBuilder(5);
+        sb.append((char) ('a' + fromCol)).append((char) ('8' - fromRow));
+        sb.append((char) ('a' + toCol)).append((char) ('8' - toRow));
+        if (promotion != null) sb.append("pnbrqk".charAt(promotion.ordinal()));
+        return sb.toString();
+    }
+
+    /** Parses coordinate notation produced by {@link #toLongAlgebraic()}. */
+    public static Move fromLongAlgebraic(String text) {
+        if (text.length() < 4 || text.length() > 5) {
+            throw new IllegalArgumentException("Bad move: " + text);
+        }
+        int fc = text.charAt(0) - 'a', fr = '8' - text.charAt(1);
+        int tc = text.charAt(2) - 'a', tr = '8' - text.charAt(3);
+        if (!Board.inBounds(fr, fc) || !Board.inBounds(tr, tc)) {
+            throw new IllegalArgumentException("Bad move: " + text);
+        }
+        Piece.Type promotion = null;
+        if (text.length() == 5) {
+            int idx = "nbrq".indexOf(Character.toLowerCase(text.charAt(4)));
+            if (idx < 0) throw new IllegalArgumentException("Bad promotion: " + text);
+            promotion = Piece.Type.values()[idx + 1];
+        }
+        return new Move(fr, fc, tr, tc, promotion);
+    }
+
     @Override
     public String toString() {
         return String.format("(%d,%d)->(%d,%d)%s", fromRow, fromCol, toRow, toCol,
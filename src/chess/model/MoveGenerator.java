@@ -3,40 +3,258 @@ package chess.model;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Legal move generation. Checkers, absolute pins and the squares attacked by the
+ * opponent are computed once per position, so only legal moves are emitted: with
+ * two checkers only the king may move, with one checker the other pieces must
+ * capture it or block, pinned pieces stay on their pin line and the king never
+ * steps onto an attacked square. No move is tried out on the board, except that
+ * en passant captures, which remove two pieces from a rank at once, get a direct
+ * check of the king afterwards.
+ *
+ * The core generator writes packed moves into a caller-supplied {@link MoveList}
+ * and allocates nothing; the {@code List<Move>} methods are views for callers
+ * that want move objects.
+ */
 public class MoveGenerator {
+    private static final int[] PROMOTIONS = {
+            Piece.Type.QUEEN.ordinal(), Piece.Type.ROOK.ordinal(),
+            Piece.Type.BISHOP.ordinal(), Piece.Type.KNIGHT.ordinal()
+    };
+
     public static List<Move> legalMoves(Board board, Color toMove) {
-        List<Move> out = new ArrayList<>();
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = board.get(r, c);
-                if (p != null && p.color() == toMove) {
-                    List<Move> pseudo = p.legalMoves(board, r, c);
-                    for (Move m : pseudo) {
-                        if (isLegal(board, m, toMove)) {
-                            out.add(m);
-                        }
-                    }
-                }
-            }
-        }
+        MoveList list = new MoveList();
+        generate(board, toMove, -1L, false, list);
+        return toMoves(list);
+    }
+
+    /** Clears {@code out} and fills it with the legal moves of {@code toMove}. */
+    public static void legalMoves(Board board, Color toMove, MoveList out) {
+        out.clear();
+        generate(board, toMove, -1L, false, out);
+    }
+
+    /**
+     * Legal captures and promotions only, for quiescence search. When the side to
+     * move is in check this still returns only the capturing evasions.
+     */
+    public static List<Move> legalCaptures(Board board, Color toMove) {
+        MoveList list = new MoveList();
+        generate(board, toMove, -1L, true, list);
+        return toMoves(list);
+    }
+
+    /** Clears {@code out} and fills it with the legal captures and promotions of {@code toMove}. */
+    public static void legalCaptures(Board board, Color toMove, MoveList out) {
+        out.clear();
+        generate(board, toMove, -1L, true, out);
+    }
+
+    private static List<Move> toMoves(MoveList list) {
+        List<Move> out = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) out.add(Move.decode(list.get(i)));
         return out;
     }
 
-    //DRY RUN MOVE FOR KING THREAT CHECK
+    //DRY RUN MOVE FOR KING THREAT CHECK (on a copy: board is not touched, so it may be shared)
     public static boolean isLegal(Board board, Move m, Color toMove) {
         Board copy = board.clone();
         copy.applyMove(m);
         return !copy.isKingInCheck(toMove);
     }
 
+    /**
+     * Clears {@code out} and fills it with the legal moves of the side to move
+     * that start on a square in {@code fromMask}.
+     */
+    public static void legalMovesFrom(Board board, long fromMask, MoveList out) {
+        out.clear();
+        generate(board, board.sideToMove(), fromMask, false, out);
+    }
+
     //LEGAL MOVES FOR SPECIFIC PIECE
     public static List<Move> legalMovesForPiece(Board board, int r, int c) {
         Piece p = board.get(r, c);
         if (p == null) return List.of();
-        List<Move> result = new ArrayList<>();
-        for (Move m : p.legalMoves(board, r, c)) {
-            if (isLegal(board, m, p.color())) result.add(m);
+        MoveList list = new MoveList();
+        generate(board, p.color(), 1L << Board.square(r, c), false, list);
+        return toMoves(list);
+    }
+
+    /**
+     * Appends the legal moves of {@code us} whose origin square is in {@code fromMask}.
+     */
+    private static void generate(Board board, Color us, long fromMask, boolean capturesOnly, MoveList out) {
+        Color them = us.opposite();
+        long ours = board.occupancy(us);
+        long occ = board.occupancy();
+        long theirs = board.occupancy(them);
+        long targets = capturesOnly ? theirs : ~ours;
+        int ksq = board.kingSquare(us);
+
+        long checkMask = -1L;
+        long pinned = 0;
+        if (ksq >= 0) {
+            long kingBit = 1L << ksq;
+            long checkers = board.attackersTo(ksq, them, occ);
+            if ((fromMask & kingBit) != 0) {
+                // the king is taken off the board so it cannot hide behind itself on a checking ray
+                long danger = attackedSquares(board, them, occ & ~kingBit);
+                addMoves(ksq, Attacks.KING[ksq] & targets & ~danger, theirs, out);
+                if (checkers == 0 && !capturesOnly) addCastling(board, ksq, danger, out);
+            }
+            if (Long.bitCount(checkers) > 1) return; // double check: king moves only
+            if (checkers != 0) {
+                int checker = Long.numberOfTrailingZeros(checkers);
+                checkMask = checkers | Board.between(ksq, checker);
+            }
+            pinned = pinnedPieces(board, us, ksq);
+        }
+
+        targets &= checkMask;
+
+        for (long bits = board.pieces(us, Piece.Type.PAWN) & fromMask; bits != 0; bits &= bits - 1) {
+            int sq = Long.numberOfTrailingZeros(bits);
+            long allowed = checkMask & pinLine(pinned, ksq, sq);
+            addPawnMoves(sq, us, occ, theirs, allowed, capturesOnly, out);
+        }
+        int ep = board.enPassantSquare();
+        if (ep != Board.NO_SQUARE && us == board.sideToMove() && ksq >= 0) {
+            addEnPassant(board, us, ep, ksq, fromMask, out);
+        }
+        for (long bits = board.pieces(us, Piece.Type.KNIGHT) & fromMask & ~pinned; bits != 0; bits &= bits - 1) {
+            int sq = Long.numberOfTrailingZeros(bits);
+            addMoves(sq, Attacks.KNIGHT[sq] & targets, theirs, out);
+        }
+        long diagonal = board.pieces(us, Piece.Type.BISHOP) | board.pieces(us, Piece.Type.QUEEN);
+        for (long bits = diagonal & fromMask; bits != 0; bits &= bits - 1) {
+            int sq = Long.numberOfTrailingZeros(bits);
+            addMoves(sq, Attacks.bishop(sq, occ) & targets & pinLine(pinned, ksq, sq), theirs, out);
+        }
+        long straight = board.pieces(us, Piece.Type.ROOK) | board.pieces(us, Piece.Type.QUEEN);
+        for (long bits = straight & fromMask; bits != 0; bits &= bits - 1) {
+            int sq = Long.numberOfTrailingZeros(bits);
+            addMoves(sq, Attacks.rook(sq, occ) & targets & pinLine(pinned, ksq, sq), theirs, out);
+        }
+    }
+
+    /** Pieces of {@code us} that are the only blocker between their king and an enemy slider. */
+    private static long pinnedPieces(Board board, Color us, int ksq) {
+        Color them = us.opposite();
+        long theirs = board.occupancy(them);
+        long queens = board.pieces(them, Piece.Type.QUEEN);
+        // x-ray through our own pieces: only enemy pieces block here
+        long snipers = (Attacks.rook(ksq, theirs) & (board.pieces(them, Piece.Type.ROOK) | queens))
+                | (Attacks.bishop(ksq, theirs) & (board.pieces(them, Piece.Type.BISHOP) | queens));
+        long pinned = 0;
+        long occ = board.occupancy();
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Board.between(ksq, Long.numberOfTrailingZeros(snipers)) & occ;
+            if (Long.bitCount(blockers) == 1) pinned |= blockers & board.occupancy(us);
+        }
+        return pinned;
+    }
+
+    private static long pinLine(long pinned, int ksq, int sq) {
+        return (pinned & (1L << sq)) == 0 ? -1L : Board.line(ksq, sq);
+    }
+
+    /** Every square {@code by} attacks, using {@code occ} as blockers for its sliders. */
+    private static long attackedSquares(Board board, Color by, long occ) {
+        long attacks = Board.pawnAttacks(board.pieces(by, Piece.Type.PAWN), by)
+                | Board.knightAttacks(board.pieces(by, Piece.Type.KNIGHT))
+                | Board.kingAttacks(board.pieces(by, Piece.Type.KING));
+        long queens = board.pieces(by, Piece.Type.QUEEN);
+        for (long bits = board.pieces(by, Piece.Type.BISHOP) | queens; bits != 0; bits &= bits - 1) {
+            attacks |= Attacks.bishop(Long.numberOfTrailingZeros(bits), occ);
+        }
+        for (long bits = board.pieces(by, Piece.Type.ROOK) | queens; bits != 0; bits &= bits - 1) {
+            attacks |= Attacks.rook(Long.numberOfTrailingZeros(bits), occ);
+        }
+        return attacks;
+    }
+
+    private static void addPawnMoves(int sq, Color us, long occ, long theirs, long allowed,
+                                     boolean capturesOnly, MoveList out) {
+        int dir = (us == Color.WHITE) ? -8 : 8;
+        int startRow = (us == Color.WHITE) ? 6 : 1;
+        int one = sq + dir;
+        boolean promotes = (one >>> 3) == 0 || (one >>> 3) == 7;
+        if ((occ & (1L << one)) == 0 && (promotes || !capturesOnly)) {
+            if ((allowed & (1L << one)) != 0) addPawnMove(sq, one, 0, out);
+            int two = one + dir;
+            if (!capturesOnly && (sq >>> 3) == startRow && (occ & (1L << two)) == 0 && (allowed & (1L << two)) != 0) {
+                out.add(Move.encode(sq, two, 0, Move.FLAG_DOUBLE_PUSH));
+            }
+        }
+        for (long caps = Attacks.PAWN[us.ordinal()][sq] & theirs & allowed; caps != 0; caps &= caps - 1) {
+            addPawnMove(sq, Long.numberOfTrailingZeros(caps), Move.FLAG_CAPTURE, out);
+        }
+    }
+
+    /**
+     * En passant captures onto {@code ep}. The pin and check masks do not cover
+     * them (the captured pawn is not on the target square, and taking both pawns
+     * off a rank can expose the king sideways), so the king is tested directly
+     * with the resulting occupancy.
+     */
+    private static void addEnPassant(Board board, Color us, int ep, int ksq, long fromMask, MoveList out) {
+        Color them = us.opposite();
+        long epBit = 1L << ep;
+        int capturedSq = ep + (us == Color.WHITE ? 8 : -8);
+        long capturedBit = 1L << capturedSq;
+        long pawns = Attacks.PAWN[them.ordinal()][ep] & board.pieces(us, Piece.Type.PAWN) & fromMask;
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long occ = (board.occupancy() ^ (1L << from) ^ capturedBit) | epBit;
+            if ((board.attackersTo(ksq, them, occ) & ~capturedBit) == 0) {
+                out.add(Move.encode(from, ep, 0, Move.FLAG_CAPTURE | Move.FLAG_EN_PASSANT));
+            }
+        }
+    }
+
+    private static void addPawnMove(int from, int to, int flags, MoveList out) {
+        int tr = to >>> 3;
+        if (tr == 0 || tr == 7) {
+            for (int promotion : PROMOTIONS) out.add(Move.encode(from, to, promotion, flags));
+        } else {
+            out.add(Move.encode(from, to, 0, flags));
+        }
+    }
+
+    private static void addCastling(Board board, int ksq, long danger, MoveList out) {
+        Piece king = board.get(ksq);
+        int r = ksq >>> 3, c = ksq & 7;
+        boolean white = king.color() == Color.WHITE;
+        int rights = board.castlingRights();
+        if (c != 4) return;
+        // King-side
+        if ((rights & (white ? Board.WHITE_KINGSIDE : Board.BLACK_KINGSIDE)) != 0
+                && canCastle(board, king, ksq, r * 8 + 7, danger)) {
+            out.add(Move.encode(ksq, r * 8 + 6, 0, Move.FLAG_CASTLE));
+        }
+        // Queen-side
+        if ((rights & (white ? Board.WHITE_QUEENSIDE : Board.BLACK_QUEENSIDE)) != 0
+                && canCastle(board, king, ksq, r * 8, danger)) {
+            out.add(Move.encode(ksq, r * 8 + 2, 0, Move.FLAG_CASTLE));
+        }
+    }
+
+    private static boolean canCastle(Board board, Piece king, int ksq, int rookSq, long danger) {
+        Piece rook = board.get(rookSq);
+        if (!(rook instanceof Rook) || rook.color() != king.color()) return false;
+        // Not Blocked.
+        if ((Board.between(ksq, rookSq) & board.occupancy()) != 0) return false;
+        // Under Threat?? (the two squares the king crosses)
+        int step = rookSq > ksq ? 1 : -1;
+        long path = (1L << (ksq + step)) | (1L << (ksq + 2 * step));
+        return (path & danger) == 0;
+    }
+
+    private static void addMoves(int from, long targets, long theirs, MoveList out) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            out.add(Move.encode(from, to, 0, (theirs & (1L << to)) != 0 ? Move.FLAG_CAPTURE : 0));
         }
-        return result;
     }
 }
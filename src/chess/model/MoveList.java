@@ -0,0 +1,69 @@
+package chess.model;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of packed moves (see {@link Move#encode}) backed by an
+ * {@code int[]}. The generator appends into it in place; a search keeps one list
+ * per ply and clears it instead of allocating a new one for every node.
+ */
+public final class MoveList {
+    /**
+     * Initial size of the array. No position reachable from the start has more
+     * than 218 moves, but a FEN can set up more (e.g. a dozen queens), so the
+     * array grows when it fills up.
+     */
+    public static final int CAPACITY = 256;
+
+    private int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        if (size == moves.length) moves = Arrays.copyOf(moves, size * 2);
+        moves[size++] = move;
+    }
+
+    public int get(int i) {
+        return moves[i];
+    }
+
+    public void set(int i, int move) {
+        moves[i] = move;
+    }
+
+    public void swap(int i, int j) {
+        int t = moves[i];
+        moves[i] = moves[j];
+        moves[j] = t;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** Index of the move with the given {@link Move#code(int) code}, or -1. */
+    public int indexOf(int code) {
+        for (int i = 0; i < size; i++) {
+            if (Move.code(moves[i]) == code) return i;
+        }
+        return -1;
+    }
+
+    /** Moves the move with the given code to the front; returns whether it was found. */
+    public boolean moveToFront(int code) {
+        int i = indexOf(code);
+        if (i < 0) return false;
+        int m = moves[i];
+        System.arraycopy(moves, 0, moves, 1, i);
+        moves[0] = m;
+        return true;
+    }
+}
@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Pawn extends Piece {
-    public Pawn(Color color) {
+    private static final int[] CAPTURE_COLS = {-1, 1};
+
+    Pawn(Color color) {
         super(color);
     }
 
@@ -31,14 +33,17 @@ public class Pawn extends Piece {
         }
 
         // Capturing
-        for (int dc : new int[]{-1, 1}) {
+        for (int dc : CAPTURE_COLS) {
             int cc = c + dc;
             if (Board.inBounds(nr, cc)) {
                 Piece target = board.get(nr, cc);
                 if (target != null && target.color() != color) {
                     moves.add(new Move(r, c, nr, cc));
+                } else if (target == null && color == board.sideToMove()
+                        && Board.square(nr, cc) == board.enPassantSquare()) {
+                    // En passant
+                    moves.add(new Move(r, c, nr, cc));
                 }
-                // En passant ...Will Implement If I have time.
             }
         }
 
@@ -4,42 +4,45 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public abstract class Piece implements Cloneable {
+/**
+ * Pieces are immutable flyweights: there is exactly one instance per type and
+ * color, obtained with {@link #of(Type, Color)}, so boards share them and can be
+ * copied with a plain array copy. Anything that depends on a piece's history,
+ * such as castling rights or the en passant square, lives on the {@link Board}.
+ */
+public abstract class Piece {
     public enum Type {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING}
 
+    // indexed by color * 6 + type, the same order as the board's bitboards
+    private static final Piece[] ALL = {
+            new Pawn(Color.WHITE), new Knight(Color.WHITE), new Bishop(Color.WHITE),
+            new Rook(Color.WHITE), new Queen(Color.WHITE), new King(Color.WHITE),
+            new Pawn(Color.BLACK), new Knight(Color.BLACK), new Bishop(Color.BLACK),
+            new Rook(Color.BLACK), new Queen(Color.BLACK), new King(Color.BLACK)
+    };
+
     protected final Color color;
-    protected boolean hasMoved = false;
+    /** color * 6 + type, the index of this piece's bitboard and Zobrist keys; saves a virtual call. */
+    final int index;
 
-    public Piece(Color color) {
+    Piece(Color color) {
         this.color = Objects.requireNonNull(color);
+        this.index = color.ordinal() * 6 + type().ordinal();
     }
 
-    public Color color() {
-        return color;
-    }
-
-    public boolean hasMoved() {
-        return hasMoved;
+    /** The shared piece of the given type and color. */
+    public static Piece of(Type type, Color color) {
+        return ALL[color.ordinal() * 6 + type.ordinal()];
     }
 
-    public void setHasMoved(boolean moved) {
-        this.hasMoved = moved;
+    public Color color() {
+        return color;
     }
 
     public abstract Type type();
 
     public abstract List<Move> legalMoves(Board board, int r, int c);
 
-    @Override
-    public Piece clone() {
-        try {
-            Piece p = (Piece) super.clone();
-            return p;
-        } catch (CloneNotSupportedException e) {
-            throw new AssertionError(e);
-        }
-    }
-
     protected List<Move> slideMoves(Board board, int r, int c, int[][] deltas) {
         List<Move> moves = new ArrayList<>();
         for (int[] d : deltas) {
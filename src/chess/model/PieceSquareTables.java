@@ -0,0 +1,152 @@
+package chess.model;
+
+/**
+ * Material values and middlegame/endgame piece-square tables, kept in the model
+ * so {@link Board} can maintain their totals incrementally (see
+ * {@link Board#midgameScore()}), the same way it maintains the Zobrist key.
+ * Scores are in centipawns from White's point of view.
+ *
+ * The game phase runs from {@link #MAX_PHASE} with all pieces on the board down
+ * to 0 with only kings and pawns left; an evaluation blends the middlegame and
+ * endgame totals by it.
+ */
+public final class PieceSquareTables {
+    // indexed by Piece.Type ordinal; private so nothing can desync Board's running totals
+    private static final int[] VALUE = {100, 320, 330, 500, 900, 0};
+    private static final int[] PHASE = {0, 1, 1, 2, 4, 0}; // minor 1, rook 2, queen 4
+    public static final int MAX_PHASE = 24;
+
+    // Tables are laid out as seen from white with rank 8 on top, i.e. indexed by white's
+    // square r * 8 + c; black looks them up mirrored (sq ^ 56).
+    private static final int[][] MIDGAME_TABLES = {
+            { // PAWN
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            },
+            { // KNIGHT
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            { // BISHOP
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            { // ROOK
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            },
+            { // QUEEN
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            },
+            { // KING: stay behind the pawns
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            }
+    };
+
+    // In the endgame passed pawns matter more and the king belongs in the centre;
+    // the other pieces keep their middlegame tables.
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            20, 20, 20, 20, 20, 20, 20, 20,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // value + table, negated for black; indexed by (color * 6 + type) * 64 + square
+    static final int[] MIDGAME = new int[12 * 64];
+    static final int[] ENDGAME = new int[12 * 64];
+
+    static {
+        for (int color = 0; color < 2; color++) {
+            int sign = color == 0 ? 1 : -1;
+            int mirror = color == 0 ? 0 : 56;
+            for (int type = 0; type < 6; type++) {
+                int[] mg = MIDGAME_TABLES[type];
+                int[] eg = type == 0 ? PAWN_ENDGAME : type == 5 ? KING_ENDGAME : mg;
+                for (int sq = 0; sq < 64; sq++) {
+                    int i = (color * 6 + type) * 64 + sq;
+                    MIDGAME[i] = sign * (VALUE[type] + mg[sq ^ mirror]);
+                    ENDGAME[i] = sign * (VALUE[type] + eg[sq ^ mirror]);
+                }
+            }
+        }
+    }
+
+    private PieceSquareTables() {}
+
+    /** Middlegame value of {@code p} on {@code sq}, negative for black pieces. */
+    public static int midgame(Piece p, int sq) {
+        return MIDGAME[p.index * 64 + sq];
+    }
+
+    /** Endgame value of {@code p} on {@code sq}, negative for black pieces. */
+    public static int endgame(Piece p, int sq) {
+        return ENDGAME[p.index * 64 + sq];
+    }
+
+    /** Material value of a piece type in centipawns. */
+    public static int value(Piece.Type type) {
+        return VALUE[type.ordinal()];
+    }
+
+    /** Phase weight of a piece type: minor 1, rook 2, queen 4, else 0. */
+    public static int phase(Piece.Type type) {
+        return PHASE[type.ordinal()];
+    }
+
+    public static int phase(Piece p) {
+        return PHASE[p.type().ordinal()];
+    }
+}
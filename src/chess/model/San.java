@@ -0,0 +1,153 @@
+package chess.model;
+
+/**
+ * Standard Algebraic Notation ({@code Nf3}, {@code exd5}, {@code O-O},
+ * {@code e8=Q+}), as used in PGN. SAN only makes sense relative to a position:
+ * parsing finds the one legal move the text describes, and formatting adds
+ * just enough of the origin square to tell the move apart from the others.
+ */
+public final class San {
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {}
+
+    /**
+     * The legal move that {@code san} describes, from {@code legal} (the legal
+     * moves of {@code board}'s side to move). Check, mate and annotation
+     * suffixes ({@code + # ! ?}) are ignored, and castling may be written with
+     * zeros.
+     *
+     * @return the packed move
+     * @throws IllegalArgumentException if the text is not SAN, or describes no
+     *         legal move or more than one
+     */
+    public static int parse(Board board, MoveList legal, CharSequence san) {
+        int end = san.length();
+        while (end > 0 && isSuffix(san.charAt(end - 1))) end--;
+        if (end < 2) throw bad(san, "too short");
+
+        if (san.charAt(0) == 'O' || san.charAt(0) == '0') {
+            int toCol;
+            if (isCastle(san, end, 3)) toCol = 6;
+            else if (isCastle(san, end, 5)) toCol = 2;
+            else throw bad(san, "bad castling");
+            for (int i = 0; i < legal.size(); i++) {
+                int m = legal.get(i);
+                if ((m & Move.FLAG_CASTLE) != 0 && (Move.to(m) & 7) == toCol) return m;
+            }
+            throw bad(san, "illegal");
+        }
+
+        int type = PIECE_LETTERS.indexOf(san.charAt(0));
+        int pos = type > 0 ? 1 : 0;
+        if (type < 0) type = 0;
+
+        int promotion = 0;
+        if (type == 0) {
+            char last = san.charAt(end - 1);
+            int promo = PIECE_LETTERS.indexOf(last);
+            if (promo > 0) {
+                if (promo == 5) throw bad(san, "bad promotion");
+                promotion = promo;
+                end--;
+                if (end > 0 && san.charAt(end - 1) == '=') end--;
+            }
+        }
+        if (end - pos < 2) throw bad(san, "no destination");
+        int toCol = san.charAt(end - 2) - 'a', toRow = '8' - san.charAt(end - 1);
+        if (!Board.inBounds(toRow, toCol)) throw bad(san, "bad destination");
+        int to = toRow * 8 + toCol;
+
+        // whatever is left between the piece letter and the destination narrows the origin
+        int fromCol = -1, fromRow = -1;
+        for (int i = pos; i < end - 2; i++) {
+            char ch = san.charAt(i);
+            if (ch >= 'a' && ch <= 'h') fromCol = ch - 'a';
+            else if (ch >= '1' && ch <= '8') fromRow = '8' - ch;
+            else if (ch != 'x' && ch != ':') throw bad(san, "unexpected '" + ch + "'");
+        }
+
+        int found = 0, count = 0;
+        for (int i = 0; i < legal.size(); i++) {
+            int m = legal.get(i);
+            int from = Move.from(m);
+            if (Move.to(m) != to || Move.promotion(m) != promotion) continue;
+            if (board.get(from).type().ordinal() != type) continue;
+            if (fromCol >= 0 && (from & 7) != fromCol) continue;
+            if (fromRow >= 0 && (from >>> 3) != fromRow) continue;
+            found = m;
+            count++;
+        }
+        if (count == 0) {
+            if (type == 0 && promotion == 0 && (toRow == 0 || toRow == 7)) throw bad(san, "missing promotion piece");
+            throw bad(san, "illegal");
+        }
+        if (count > 1) throw bad(san, "ambiguous");
+        return found;
+    }
+
+    /**
+     * SAN for {@code move}, one of {@code legal} (the legal moves of
+     * {@code board}'s side to move), including the {@code +} or {@code #}
+     * suffix. The board is left as it was.
+     */
+    public static String format(Board board, MoveList legal, int move) {
+        StringBuilder sb = new StringBuilder(8);
+        int from = Move.from(move), to = Move.to(move);
+        int type = board.get(from).type().ordinal();
+        if ((move & Move.FLAG_CASTLE) != 0) {
+            sb.append((to & 7) == 6 ? "O-O" : "O-O-O");
+        } else {
+            if (type == 0) {
+                if (Move.isCapture(move)) sb.append((char) ('a' + (from & 7)));
+            } else {
+                sb.append(PIECE_LETTERS.charAt(type));
+                // disambiguate by file if that is enough, else by rank, else by both
+                boolean clash = false, sameFile = false, sameRank = false;
+                for (int i = 0; i < legal.size(); i++) {
+                    int other = Move.from(legal.get(i));
+                    if (other == from || Move.to(legal.get(i)) != to) continue;
+                    if (board.get(other).type().ordinal() != type) continue;
+                    clash = true;
+                    sameFile |= (other & 7) == (from & 7);
+                    sameRank |= (other >>> 3) == (from >>> 3);
+                }
+                if (clash && (!sameFile || sameRank)) sb.append((char) ('a' + (from & 7)));
+                if (clash && sameFile) sb.append((char) ('8' - (from >>> 3)));
+            }
+            if (Move.isCapture(move)) sb.append('x');
+            sb.append((char) ('a' + (to & 7))).append((char) ('8' - (to >>> 3)));
+            if (Move.promotion(move) != 0) sb.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move)));
+        }
+
+        Color mover = board.get(from).color();
+        board.makeMove(move);
+        Color them = mover.opposite();
+        if (board.isKingInCheck(them)) {
+            MoveList replies = new MoveList();
+            MoveGenerator.legalMoves(board, them, replies);
+            sb.append(replies.isEmpty() ? '#' : '+');
+        }
+        board.unmakeMove();
+        return sb.toString();
+    }
+
+    private static boolean isSuffix(char ch) {
+        return ch == '+' || ch == '#' || ch == '!' || ch == '?';
+    }
+
+    /** Whether the first {@code length} characters are O-O or O-O-O (letter O or zero). */
+    private static boolean isCastle(CharSequence san, int end, int length) {
+        if (end != length) return false;
+        char o = san.charAt(0);
+        for (int i = 0; i < length; i++) {
+            if (san.charAt(i) != (i % 2 == 0 ? o : '-')) return false;
+        }
+        return true;
+    }
+
+    private static IllegalArgumentException bad(CharSequence san, String why) {
+        return new IllegalArgumentException("Bad SAN move (" + why + "): " + san);
+    }
+}
@@ -0,0 +1,48 @@
+package chess.model;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of one key per
+ * (piece, square), one for black to move, one for the castling rights and one
+ * for the en passant file, so a move only XORs the few keys that change. The
+ * keys come from a fixed-seed SplitMix64 sequence and are therefore stable
+ * across runs, which lets keys be stored on disk.
+ */
+final class Zobrist {
+    /** Indexed by (color * 6 + type) * 64 + square. */
+    static final long[] PIECE_SQUARE = new long[12 * 64];
+    static final long SIDE;
+    /** Indexed by the castling rights bitmask (see {@link Board#castlingRights()}). */
+    static final long[] CASTLING = new long[16];
+    /** Indexed by the file of the en passant square. */
+    static final long[] EN_PASSANT = new long[8];
+
+    private static long seed = 0x5EED_C0DE_CAFE_F00DL;
+
+    static {
+        for (int i = 0; i < PIECE_SQUARE.length; i++) PIECE_SQUARE[i] = next();
+        SIDE = next();
+        // combined rights hash as the XOR of the single-right keys, like a bitfield
+        long[] single = {next(), next(), next(), next()};
+        for (int rights = 0; rights < 16; rights++) {
+            long key = 0;
+            for (int bit = 0; bit < 4; bit++) {
+                if ((rights & (1 << bit)) != 0) key ^= single[bit];
+            }
+            CASTLING[rights] = key;
+        }
+        for (int file = 0; file < 8; file++) EN_PASSANT[file] = next();
+    }
+
+    private Zobrist() {}
+
+    static long piece(Piece p, int sq) {
+        return PIECE_SQUARE[p.index * 64 + sq];
+    }
+
+    private static long next() {
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
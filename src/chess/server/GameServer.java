@@ -0,0 +1,142 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless server hosting one game per TCP connection on localhost, using the
+ * line protocol described in {@link Session}. Every connection gets its own
+ * thread: a virtual thread on Java 21 and later, otherwise a platform thread
+ * with a small stack. The virtual-thread executor is looked up reflectively so
+ * the code still compiles and runs on Java 17.
+ *
+ * Usage: {@code java -cp out chess.server.GameServer [port]} (0 picks a free
+ * port); it prints {@code listening on <port>} once it accepts connections.
+ * Typing {@code stats} on the server's standard input prints the open sessions
+ * and the heap in use after a full GC; clients only get the uncollected figure,
+ * so they cannot make the server collect.
+ */
+public final class GameServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7777;
+    /** Stack size requested for platform session threads; a session needs very little. */
+    private static final long PLATFORM_STACK_BYTES = 256 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final boolean virtualThreads;
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet(); // sockets of running sessions
+    private final Thread acceptor;
+
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        sessions = virtual != null ? virtual : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(null, r, "session", PLATFORM_STACK_BYTES);
+            t.setDaemon(true);
+            return t;
+        });
+        acceptor = new Thread(this::acceptLoop, "game-server-accept");
+        acceptor.setDaemon(true);
+    }
+
+    /** {@code Executors.newVirtualThreadPerTaskExecutor()} where it exists, else null. */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public void start() {
+        acceptor.start();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /** Number of connections currently open. */
+    public int activeSessions() {
+        return open.size();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+                continue;
+            }
+            open.add(socket);
+            if (serverSocket.isClosed()) { // close() may have missed it
+                closeQuietly(socket);
+                open.remove(socket);
+                return;
+            }
+            sessions.execute(() -> {
+                try {
+                    new Session(socket, this).run();
+                } finally {
+                    open.remove(socket);
+                }
+            });
+        }
+    }
+
+    /** Stops accepting and closes every open session's connection. */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : open) closeQuietly(socket);
+        sessions.shutdownNow();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // closing anyway; nothing more to do
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        server.start();
+        System.out.println("listening on " + server.port()
+                + (server.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+        BufferedReader admin = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = admin.readLine()) != null) {
+            if (line.trim().equals("stats")) {
+                Runtime rt = Runtime.getRuntime();
+                System.gc();
+                System.out.println("sessions " + server.activeSessions() + " heap " + (rt.totalMemory() - rt.freeMemory()));
+            } else if (!line.isBlank()) {
+                System.out.println("unknown command: " + line.trim());
+            }
+        }
+        server.acceptor.join(); // standard input closed: keep serving
+    }
+}
@@ -0,0 +1,193 @@
+package chess.server;
+
+import chess.model.Board;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Load test for {@link GameServer}: opens many sessions at once, plays random
+ * legal moves in all of them and reports the round-trip latency of a
+ * {@code move} request (p50/p99) and how many sessions fit in a GB of the
+ * server's heap, from the heap in use before and after the sessions were opened
+ * and played. Without a port a server is started in a separate JVM, so its heap
+ * holds nothing but sessions, and is measured after a full GC through the
+ * server's admin {@code stats} on its standard input. A server given by port
+ * can only be asked over the protocol, which reports the heap uncollected, so
+ * the memory figure is then rough.
+ *
+ * Usage: {@code java -cp out chess.server.LoadGenerator [sessions] [movesPerSession] [port]}
+ */
+public final class LoadGenerator {
+    private static final int DEFAULT_SESSIONS = 2000;
+    private static final int DEFAULT_MOVES = 40;
+    private static final int MAX_DRIVERS = 8;
+    private static final int MAX_PLIES = 200;
+
+    private LoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MOVES;
+        SpawnedServer server = args.length > 2 ? null : new SpawnedServer();
+        int port = server == null ? Integer.parseInt(args[2]) : server.port;
+
+        try (Client control = new Client(port, 0)) {
+            long heapBefore = server != null ? server.heapAfterGc() : heap(control.request("stats"));
+
+            long start = System.nanoTime();
+            Client[] clients = new Client[sessions];
+            for (int i = 0; i < sessions; i++) clients[i] = new Client(port, i + 1);
+            double connectSecs = (System.nanoTime() - start) / 1e9;
+
+            int drivers = Math.min(MAX_DRIVERS, sessions);
+            long[][] latencies = new long[drivers][];
+            List<Thread> threads = new ArrayList<>();
+            start = System.nanoTime();
+            for (int d = 0; d < drivers; d++) {
+                int driver = d;
+                Thread t = new Thread(() -> latencies[driver] = drive(clients, driver, drivers, moves));
+                threads.add(t);
+                t.start();
+            }
+            for (Thread t : threads) t.join();
+            double playSecs = (System.nanoTime() - start) / 1e9;
+
+            long heapAfter = server != null ? server.heapAfterGc() : heap(control.request("stats"));
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            double perSession = (double) (heapAfter - heapBefore) / sessions;
+
+            System.out.printf("%,d sessions connected in %.2fs; %,d moves in %.2fs (%,.0f moves/s)%n",
+                    sessions, connectSecs, all.length, playSecs, all.length / playSecs);
+            System.out.printf("move latency: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                    percentile(all, 0.50) / 1e3, percentile(all, 0.99) / 1e3, all[all.length - 1] / 1e3);
+            System.out.printf("server heap: %,.0f bytes per session, %,.0f sessions per GB%s%n",
+                    perSession, 1e9 / Math.max(1, perSession), server != null ? "" : " (without GC, rough)");
+
+            for (Client c : clients) c.close();
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+
+    /** Plays {@code moves} rounds on every {@code stride}-th client; returns each move's latency in ns. */
+    private static long[] drive(Client[] clients, int first, int stride, int moves) {
+        int mine = (clients.length - first + stride - 1) / stride;
+        long[] latencies = new long[mine * moves];
+        int n = 0;
+        try {
+            for (int round = 0; round < moves; round++) {
+                for (int i = first; i < clients.length; i += stride) latencies[n++] = clients[i].playRandomMove();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Session failed", e);
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    private static long heap(String statsReply) {
+        String[] parts = statsReply.split(" ");
+        return Long.parseLong(parts[parts.length - 1]);
+    }
+
+    /** A server in its own JVM, with its admin console on our end of its standard input and output. */
+    private static final class SpawnedServer implements AutoCloseable {
+        private final Process process;
+        private final BufferedReader out;
+        private final BufferedWriter in;
+        final int port;
+
+        SpawnedServer() throws IOException {
+            String java = ProcessHandle.current().info().command().orElse("java");
+            ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    GameServer.class.getName(), "0");
+            pb.redirectErrorStream(true);
+            process = pb.start();
+            out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+            in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII));
+            String line = out.readLine();
+            if (line == null) throw new IOException("Server did not start");
+            System.out.println("server: " + line);
+            port = Integer.parseInt(line.replaceAll("^listening on (\\d+).*$", "$1"));
+        }
+
+        long heapAfterGc() throws IOException {
+            in.write("stats\n");
+            in.flush();
+            String line = out.readLine();
+            if (line == null) throw new IOException("Server exited");
+            return heap(line);
+        }
+
+        @Override
+        public void close() {
+            process.destroy();
+        }
+    }
+
+    /** One session, with its own copy of the game to pick legal moves from. */
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+        private final Random random;
+        private final MoveList moves = new MoveList();
+        private Board board = new Board();
+
+        Client(int port, long seed) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+            random = new Random(seed);
+        }
+
+        String request(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null) throw new IOException("Connection closed by server");
+            return reply;
+        }
+
+        /** Sends one random legal move (starting a new game when this one is over); returns the round trip in ns. */
+        long playRandomMove() throws IOException {
+            MoveGenerator.legalMoves(board, board.sideToMove(), moves);
+            if (moves.isEmpty() || board.fullmoveNumber() > MAX_PLIES / 2) {
+                request("new");
+                board = new Board();
+                MoveGenerator.legalMoves(board, board.sideToMove(), moves);
+            }
+            int move = moves.get(random.nextInt(moves.size()));
+            long start = System.nanoTime();
+            String reply = request("move " + Move.toLongAlgebraic(move));
+            long elapsed = System.nanoTime() - start;
+            if (!reply.startsWith("ok")) throw new IllegalStateException("Server rejected a legal move: " + reply);
+            board.makeMove(move);
+            return elapsed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
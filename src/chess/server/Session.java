@@ -0,0 +1,158 @@
+package chess.server;
+
+import chess.model.GameState;
+import chess.model.Move;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One connection and its game. Requests and replies are single ASCII lines:
+ * <pre>
+ *   new [fen]     start again from the initial position or a FEN  -> ok
+ *   move &lt;m&gt;      play a move, e2e4 / e7e8q or SAN such as Nf3   -> ok &lt;status&gt; | illegal &lt;m&gt;
+ *   moves         the legal moves in coordinate notation          -> ok e2e4 d2d4 ...
+ *   fen           the current position                            -> ok &lt;fen&gt;
+ *   status        ONGOING, CHECK, CHECKMATE, STALEMATE or DRAW    -> ok &lt;status&gt;
+ *   stats         open sessions and heap in use                   -> ok sessions &lt;n&gt; heap &lt;bytes&gt;
+ *   quit                                                          -> bye
+ * </pre>
+ * A draw is followed by its reason, e.g. {@code ok DRAW THREEFOLD_REPETITION}.
+ * Anything else gets {@code error <reason>}. A new connection starts from the
+ * initial position.
+ *
+ * To keep thousands of idle sessions cheap, a session holds only its
+ * {@link GameState} and one small byte buffer: no readers, writers or
+ * character buffers, and replies are written straight to the socket.
+ */
+final class Session implements Runnable {
+    /** Longest request line; a FEN needs under 100 characters. */
+    private static final int BUFFER_BYTES = 256;
+
+    private final Socket socket;
+    private final GameServer server;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int head, tail;
+    private boolean lineTooLong; // set by readLine when the line it returns was cut off
+    private GameState game = new GameState();
+
+    Session(Socket socket, GameServer server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    @Override
+    public void run() {
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            String line;
+            while ((line = readLine(in)) != null) {
+                String reply = lineTooLong ? "error line too long" : handle(line.trim());
+                out.write((reply + "\n").getBytes(StandardCharsets.ISO_8859_1));
+                if (reply.equals("bye")) return;
+            }
+        } catch (IOException e) {
+            // the client went away; nothing to clean up beyond the socket
+        }
+    }
+
+    private String handle(String line) {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        String arg = space < 0 ? "" : line.substring(space + 1).trim();
+        switch (command) {
+            case "new":
+                try {
+                    game = arg.isEmpty() ? new GameState() : new GameState(arg);
+                    return "ok";
+                } catch (IllegalArgumentException e) {
+                    return "error " + e.getMessage();
+                }
+            case "move":
+                return move(arg);
+            case "moves": {
+                StringBuilder sb = new StringBuilder("ok");
+                for (Move m : game.legalMoves()) sb.append(' ').append(m.toLongAlgebraic());
+                return sb.toString();
+            }
+            case "fen":
+                return "ok " + game.toFen();
+            case "status":
+                return "ok " + status();
+            case "stats": {
+                Runtime rt = Runtime.getRuntime(); // garbage included: clients cannot force a GC
+                return "ok sessions " + server.activeSessions() + " heap " + (rt.totalMemory() - rt.freeMemory());
+            }
+            case "quit":
+                return "bye";
+            default:
+                return "error unknown command: " + command;
+        }
+    }
+
+    private String move(String text) {
+        Move m;
+        try {
+            m = isCoordinate(text) ? Move.fromLongAlgebraic(text) : game.moveFromSan(text);
+        } catch (IllegalArgumentException e) {
+            return "illegal " + text;
+        }
+        if (!game.makeMove(m)) return "illegal " + text;
+        return "ok " + status();
+    }
+
+    private String status() {
+        GameState.Status s = game.status();
+        return s == GameState.Status.DRAW ? s + " " + game.drawReason() : s.toString();
+    }
+
+    /** Whether {@code text} looks like e2e4 or e7e8q rather than SAN. */
+    private static boolean isCoordinate(String text) {
+        int n = text.length();
+        return (n == 4 || n == 5)
+                && isFile(text.charAt(0)) && isRank(text.charAt(1))
+                && isFile(text.charAt(2)) && isRank(text.charAt(3));
+    }
+
+    private static boolean isFile(char ch) {
+        return ch >= 'a' && ch <= 'h';
+    }
+
+    private static boolean isRank(char ch) {
+        return ch >= '1' && ch <= '8';
+    }
+
+    /**
+     * The next request line without its terminator; null at end of stream. A
+     * line longer than the buffer comes back empty with {@link #lineTooLong} set.
+     */
+    private String readLine(InputStream in) throws IOException {
+        lineTooLong = false;
+        while (true) {
+            for (int i = head; i < tail; i++) {
+                if (buffer[i] == '\n') {
+                    int end = i > head && buffer[i - 1] == '\r' ? i - 1 : i;
+                    String line = lineTooLong ? "" : new String(buffer, head, end - head, StandardCharsets.ISO_8859_1);
+                    head = i + 1;
+                    return line;
+                }
+            }
+            if (head > 0) {
+                System.arraycopy(buffer, head, buffer, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            if (tail == buffer.length) {
+                lineTooLong = true; // drop what we have of an overlong line and keep looking for its end
+                tail = 0;
+            }
+            int n = in.read(buffer, tail, buffer.length - tail);
+            if (n < 0) return null;
+            tail += n;
+        }
+    }
+}
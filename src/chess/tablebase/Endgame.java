@@ -0,0 +1,113 @@
+package chess.tablebase;
+
+import chess.model.Piece;
+
+/**
+ * The endings with a table, and how their positions are numbered. The strong
+ * side is always White here; positions where Black has the extra piece are
+ * probed with the colors swapped and the board mirrored.
+ *
+ * Symmetry keeps the tables small. Without pawns the board can be rotated and
+ * reflected, so the white king is moved into the a1-d1-d4 triangle (10 squares
+ * instead of 64). A pawn only allows the left-right mirror, so the pawn is kept
+ * on files a-d and ranks 2-7 (24 squares).
+ *
+ * Index within one side-to-move half: {@code (kingOrPawn * 64 + second) * 64 + third},
+ * see {@link #index}.
+ */
+enum Endgame {
+    KQK(Piece.Type.QUEEN),
+    KRK(Piece.Type.ROOK),
+    KPK(Piece.Type.PAWN);
+
+    private static final int FLIP_FILE = 1, FLIP_RANK = 2, TRANSPOSE = 4;
+    /** Square to triangle slot 0-9 for the white king in pawnless endings, or -1. */
+    private static final int[] TRIANGLE = new int[64];
+    private static final int[] TRIANGLE_SQUARES = new int[10];
+
+    static {
+        int slot = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7, rank = 7 - (sq >>> 3);
+            if (file <= 3 && rank <= file) {
+                TRIANGLE_SQUARES[slot] = sq;
+                TRIANGLE[sq] = slot++;
+            } else {
+                TRIANGLE[sq] = -1;
+            }
+        }
+    }
+
+    final Piece.Type piece;
+    /** Positions for one side to move; the table holds White to move, then Black to move. */
+    final int positionsPerSide;
+
+    Endgame(Piece.Type piece) {
+        this.piece = piece;
+        this.positionsPerSide = (piece == Piece.Type.PAWN ? 24 : 10) * 64 * 64;
+    }
+
+    String fileName() {
+        return name() + ".tb";
+    }
+
+    static Endgame of(Piece.Type type) {
+        switch (type) {
+            case QUEEN: return KQK;
+            case ROOK: return KRK;
+            case PAWN: return KPK;
+            default: return null;
+        }
+    }
+
+    /** Index of the position (White king, Black king, White piece) after the symmetry reduction. */
+    int index(int whiteKing, int blackKing, int piece) {
+        if (this == KPK) {
+            if ((piece & 7) > 3) {
+                whiteKing ^= 7;
+                blackKing ^= 7;
+                piece ^= 7;
+            }
+            int pawn = ((piece >>> 3) - 1) * 4 + (piece & 7);
+            return (pawn * 64 + whiteKing) * 64 + blackKing;
+        }
+        int t = 0;
+        int file = whiteKing & 7, rank = 7 - (whiteKing >>> 3);
+        if (file > 3) {
+            t |= FLIP_FILE;
+            file = 7 - file;
+        }
+        if (rank > 3) {
+            t |= FLIP_RANK;
+            rank = 7 - rank;
+        }
+        if (rank > file) t |= TRANSPOSE;
+        return (TRIANGLE[transform(whiteKing, t)] * 64 + transform(blackKing, t)) * 64 + transform(piece, t);
+    }
+
+    /** The squares {White king, Black king, White piece} of an index (with the symmetry applied). */
+    void squares(int index, int[] out) {
+        int first = index >>> 12, second = (index >>> 6) & 63, third = index & 63;
+        if (this == KPK) {
+            out[0] = second;
+            out[1] = third;
+            out[2] = (first / 4 + 1) * 8 + first % 4;
+        } else {
+            out[0] = TRIANGLE_SQUARES[first];
+            out[1] = second;
+            out[2] = third;
+        }
+    }
+
+    private static int transform(int sq, int t) {
+        int r = sq >>> 3, c = sq & 7;
+        if ((t & FLIP_FILE) != 0) c = 7 - c;
+        if ((t & FLIP_RANK) != 0) r = 7 - r;
+        if ((t & TRANSPOSE) != 0) {
+            int rank = 7 - r;
+            r = 7 - c;
+            c = rank;
+        }
+        return r * 8 + c;
+    }
+}
@@ -0,0 +1,134 @@
+package chess.tablebase;
+
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Piece;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Exact results for KQK, KRK and KPK (either color with the extra piece) from
+ * table files written by {@link TablebaseGenerator}, read through read-only
+ * memory maps. One instance can be shared by any number of threads.
+ *
+ * A probe gives win/draw/loss for the side to move and the distance to mate in
+ * plies with best play (the winner mating as fast as possible, the loser
+ * holding out as long as possible). Castling rights are not part of the tables
+ * and the fifty-move rule is ignored.
+ *
+ * File layout: a {@link #HEADER_BYTES}-byte header, then two bits of
+ * win/draw/loss per position (four to a byte, low bits first), then one byte of
+ * distance to mate per position. Positions are numbered by {@link Endgame#index}
+ * with White to move first, then Black to move.
+ */
+public final class Tablebase {
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    static final int INVALID = 3;
+
+    /** {@link #probe} result for positions without a table. */
+    public static final int NOT_FOUND = -1;
+
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int HEADER_BYTES = 16;
+
+    private final Map<Endgame, MappedByteBuffer> tables = new EnumMap<>(Endgame.class);
+
+    private Tablebase() {}
+
+    /** Maps the table files found in {@code directory}; missing endings are simply not covered. */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tb = new Tablebase();
+        for (Endgame eg : Endgame.values()) {
+            Path file = directory.resolve(eg.fileName());
+            if (!Files.exists(file)) continue;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long expected = fileSize(eg);
+                if (channel.size() != expected) {
+                    throw new IOException("Bad tablebase size " + channel.size() + ", expected " + expected + ": " + file);
+                }
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, expected);
+                if (map.getInt(0) != MAGIC || map.getInt(4) != eg.ordinal()) {
+                    throw new IOException("Not a " + eg + " tablebase: " + file);
+                }
+                tb.tables.put(eg, map);
+            }
+        }
+        return tb;
+    }
+
+    static long fileSize(Endgame eg) {
+        int positions = 2 * eg.positionsPerSide;
+        return HEADER_BYTES + (positions + 3) / 4 + positions;
+    }
+
+    /** Whether no table files were found. */
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+
+    /**
+     * Looks up the position. Returns {@link #NOT_FOUND} unless it is one of the
+     * covered endings, with one king a side, no pawn on the first or last rank
+     * and no castling rights, else an entry to read with {@link #wdl(int)} and {@link #dtm(int)}.
+     */
+    public int probe(Board board) {
+        long occ = board.occupancy();
+        if (Long.bitCount(occ) != 3 || board.castlingRights() != 0) return NOT_FOUND;
+        if (Long.bitCount(board.pieces(Color.WHITE, Piece.Type.KING)) != 1
+                || Long.bitCount(board.pieces(Color.BLACK, Piece.Type.KING)) != 1) {
+            return NOT_FOUND; // a FEN can have any pieces; the tables index both kings
+        }
+        Color strong = Long.bitCount(board.occupancy(Color.WHITE)) == 2 ? Color.WHITE : Color.BLACK;
+        long extra = board.occupancy(strong) & ~board.pieces(strong, Piece.Type.KING);
+        Piece.Type type = board.get(Long.numberOfTrailingZeros(extra)).type();
+        int row = Long.numberOfTrailingZeros(extra) >>> 3;
+        if (type == Piece.Type.PAWN && (row == 0 || row == 7)) return NOT_FOUND; // no index for such a pawn
+        Endgame eg = Endgame.of(type);
+        MappedByteBuffer table = eg == null ? null : tables.get(eg);
+        if (table == null) return NOT_FOUND;
+
+        int strongKing = board.kingSquare(strong);
+        int weakKing = board.kingSquare(strong.opposite());
+        int piece = Long.numberOfTrailingZeros(extra);
+        if (strong == Color.BLACK) {
+            // mirror the ranks so the strong side plays up the board as White
+            strongKing ^= 56;
+            weakKing ^= 56;
+            piece ^= 56;
+        }
+        int side = board.sideToMove() == strong ? 0 : 1;
+        int index = side * eg.positionsPerSide + eg.index(strongKing, weakKing, piece);
+        int wdl = (table.get(HEADER_BYTES + (index >>> 2)) >>> ((index & 3) * 2)) & 3;
+        if (wdl == INVALID) return NOT_FOUND;
+        int dtm = table.get(HEADER_BYTES + (2 * eg.positionsPerSide + 3) / 4 + index) & 0xFF;
+        return wdl << 8 | dtm;
+    }
+
+    /** {@link #WIN}, {@link #DRAW} or {@link #LOSS} for the side to move. */
+    public static int wdl(int entry) {
+        return entry >>> 8;
+    }
+
+    /** Plies to mate with best play; 0 for a draw or a side already mated. */
+    public static int dtm(int entry) {
+        return entry & 0xFF;
+    }
+
+    /** Readable form of an entry, e.g. "White mates in 7" or "draw". */
+    public static String describe(int entry, Color toMove) {
+        if (entry == NOT_FOUND) return "not in tablebase";
+        int wdl = wdl(entry), moves = (dtm(entry) + 1) / 2;
+        if (wdl == DRAW) return "draw";
+        Color winner = wdl == WIN ? toMove : toMove.opposite();
+        return moves == 0 ? winner + " has mated" : winner + " mates in " + moves;
+    }
+}
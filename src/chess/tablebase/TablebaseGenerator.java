@@ -0,0 +1,297 @@
+package chess.tablebase;
+
+import chess.model.Board;
+import chess.model.Color;
+import chess.model.Move;
+import chess.model.MoveGenerator;
+import chess.model.MoveList;
+import chess.model.Piece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the {@link Tablebase} files by retrograde analysis.
+ *
+ * First every position of the table is set up on a {@link Board} and its legal
+ * moves are turned into successor indices. Moves that leave the table are
+ * resolved at once: capturing the last piece is a draw, and a promotion is
+ * looked up in the KQK or KRK table built before KPK. Then the table is solved
+ * one distance at a time, starting from the checkmates: a position is won in
+ * n plies if some move reaches a position lost in fewer than n, and lost in n
+ * if every move reaches a position already known to be won. Whatever is still
+ * open when nothing changes is a draw. Both steps are split across threads;
+ * each pass only reads results from earlier passes, so threads never need to
+ * wait for each other within a pass.
+ *
+ * Usage: {@code java -cp out chess.tablebase.TablebaseGenerator [directory] [threads]}
+ */
+public final class TablebaseGenerator {
+    public static final String DEFAULT_DIRECTORY = "tablebases";
+
+    /** Most legal moves in any position of these endings: king 8 plus queen 27. */
+    private static final int MAX_MOVES = 40;
+    private static final int UNKNOWN = 4; // only while building
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    private final ExecutorService pool;
+    private final int threads;
+    private final Map<Endgame, short[]> built = new EnumMap<>(Endgame.class);
+
+    private TablebaseGenerator(int threads) {
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "tablebase-generator");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Builds KQK, KRK and KPK into {@code directory} on {@code threads} threads. */
+    public static void generate(Path directory, int threads) throws IOException {
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(threads);
+        try {
+            for (Endgame eg : Endgame.values()) {
+                long start = System.nanoTime();
+                short[] state = generator.build(eg);
+                write(eg, state, directory.resolve(eg.fileName()));
+                System.out.printf("%s: %s in %.2fs%n", eg, summary(eg, state), (System.nanoTime() - start) / 1e9);
+            }
+        } finally {
+            generator.pool.shutdownNow();
+        }
+    }
+
+    /** Solves one ending; every entry is {@code wdl << 8 | dtm}, White to move first. */
+    private short[] build(Endgame eg) {
+        int n = 2 * eg.positionsPerSide;
+        short[] state = new short[n];
+        int[] successors = new int[n * MAX_MOVES];
+        byte[] counts = new byte[n];
+
+        // step 1: successors of every position, and the positions with no moves
+        long maxExternalDtm = parallel(n, (from, to) -> {
+            Board board = Board.fromFen(Board.START_FEN);
+            MoveList moves = new MoveList();
+            int[] squares = new int[3];
+            int maxDtm = 0;
+            for (int i = from; i < to; i++) {
+                maxDtm = Math.max(maxDtm, expand(eg, i, board, moves, squares, state, successors, counts));
+            }
+            return maxDtm;
+        }, Math::max);
+
+        // step 2: one distance to mate per pass
+        for (int level = 1; ; level++) {
+            if (level > 255) throw new IllegalStateException("Distance to mate does not fit in a byte");
+            final int n1 = level;
+            long changed = parallel(n, (from, to) -> solve(n1, from, to, state, successors, counts), Long::sum);
+            if (changed == 0 && level > maxExternalDtm) break;
+        }
+        for (int i = 0; i < n; i++) {
+            if (state[i] >>> 8 == UNKNOWN) state[i] = Tablebase.DRAW << 8;
+        }
+        built.put(eg, state);
+        return state;
+    }
+
+    /**
+     * Sets up position {@code i} and records its successors, or its result if it
+     * has no moves; returns the largest distance to mate among its moves that
+     * leave the table.
+     */
+    private int expand(Endgame eg, int i, Board board, MoveList moves, int[] squares,
+                       short[] state, int[] successors, byte[] counts) {
+        int side = i / eg.positionsPerSide;
+        eg.squares(i % eg.positionsPerSide, squares);
+        int wk = squares[0], bk = squares[1], piece = squares[2];
+        boolean adjacent = Math.abs((wk >>> 3) - (bk >>> 3)) <= 1 && Math.abs((wk & 7) - (bk & 7)) <= 1;
+        if (wk == piece || bk == piece || adjacent) {
+            state[i] = Tablebase.INVALID << 8;
+            return 0;
+        }
+        Color toMove = side == 0 ? Color.WHITE : Color.BLACK;
+        board.loadFen(fen(squares, eg.piece, toMove));
+        if (board.isKingInCheck(toMove.opposite())) {
+            state[i] = Tablebase.INVALID << 8;
+            return 0;
+        }
+        MoveGenerator.legalMoves(board, toMove, moves);
+        if (moves.isEmpty()) {
+            state[i] = (short) ((board.isKingInCheck(toMove) ? Tablebase.LOSS : Tablebase.DRAW) << 8);
+            return 0;
+        }
+
+        int maxDtm = 0;
+        state[i] = UNKNOWN << 8;
+        counts[i] = (byte) moves.size();
+        int base = i * MAX_MOVES;
+        int other = (1 - side) * eg.positionsPerSide;
+        for (int k = 0; k < moves.size(); k++) {
+            int m = moves.get(k);
+            board.makeMove(m);
+            int succ;
+            if (Move.promotion(m) != 0) {
+                int value = promotionValue(board, Piece.Type.values()[Move.promotion(m)]);
+                succ = -1 - value;
+                if (value >>> 8 != Tablebase.DRAW) maxDtm = Math.max(maxDtm, value & 0xFF);
+            } else if (board.pieces(Color.WHITE, eg.piece) == 0) {
+                succ = -1 - (Tablebase.DRAW << 8); // the last piece was captured
+            } else {
+                int p = Long.numberOfTrailingZeros(board.pieces(Color.WHITE, eg.piece));
+                succ = other + eg.index(board.kingSquare(Color.WHITE), board.kingSquare(Color.BLACK), p);
+            }
+            board.unmakeMove();
+            successors[base + k] = succ;
+        }
+        return maxDtm;
+    }
+
+    /** Result after a pawn promotes (Black to move), from the finished KQK or KRK table. */
+    private int promotionValue(Board board, Piece.Type type) {
+        Endgame eg = Endgame.of(type);
+        if (eg == null) return Tablebase.DRAW << 8; // a lone bishop or knight cannot mate
+        short[] table = built.get(eg);
+        if (table == null) throw new IllegalStateException(eg + " must be built before KPK");
+        int p = Long.numberOfTrailingZeros(board.pieces(Color.WHITE, type));
+        return table[eg.positionsPerSide + eg.index(board.kingSquare(Color.WHITE), board.kingSquare(Color.BLACK), p)];
+    }
+
+    /** One pass: settles the open positions in [from, to) whose result is {@code level} plies from mate. */
+    private static long solve(int level, int from, int to, short[] state, int[] successors, byte[] counts) {
+        long changed = 0;
+        for (int i = from; i < to; i++) {
+            if (state[i] >>> 8 != UNKNOWN) continue;
+            boolean allWon = true, won = false;
+            int base = i * MAX_MOVES;
+            for (int k = 0; k < counts[i]; k++) {
+                int s = successors[base + k];
+                int v = s >= 0 ? state[s] : -1 - s;
+                int wdl = v >>> 8, dtm = v & 0xFF;
+                // results from this same pass (dtm == level) must not be used yet
+                if (wdl == Tablebase.LOSS && dtm < level) {
+                    won = true;
+                    break;
+                }
+                if (wdl != Tablebase.WIN || dtm >= level) allWon = false;
+            }
+            if (won) {
+                state[i] = (short) (Tablebase.WIN << 8 | level);
+                changed++;
+            } else if (allWon) {
+                state[i] = (short) (Tablebase.LOSS << 8 | level);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private interface Range {
+        long run(int from, int to);
+    }
+
+    private interface Combine {
+        long apply(long a, long b);
+    }
+
+    /** Runs {@code range} over [0, n) in chunks on the pool and combines the chunk results. */
+    private long parallel(int n, Range range, Combine combine) {
+        int chunks = threads * CHUNKS_PER_THREAD;
+        List<Callable<Long>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) n * c / chunks), to = (int) ((long) n * (c + 1) / chunks);
+            tasks.add(() -> range.run(from, to));
+        }
+        long result = 0;
+        try {
+            for (Future<Long> f : pool.invokeAll(tasks)) result = combine.apply(result, f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building tablebase", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tablebase generation failed", e.getCause());
+        }
+        return result;
+    }
+
+    private static String fen(int[] squares, Piece.Type type, Color toMove) {
+        char[] cells = new char[64];
+        cells[squares[0]] = 'K';
+        cells[squares[1]] = 'k';
+        cells[squares[2]] = "PNBRQK".charAt(type.ordinal());
+        StringBuilder sb = new StringBuilder(32);
+        for (int r = 0; r < 8; r++) {
+            int empty = 0;
+            for (int c = 0; c < 8; c++) {
+                char ch = cells[r * 8 + c];
+                if (ch == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                sb.append(ch);
+            }
+            if (empty > 0) sb.append(empty);
+            if (r < 7) sb.append('/');
+        }
+        return sb.append(toMove == Color.WHITE ? " w - - 0 1" : " b - - 0 1").toString();
+    }
+
+    private static void write(Endgame eg, short[] state, Path file) throws IOException {
+        int n = state.length;
+        ByteBuffer buf = ByteBuffer.allocate((int) Tablebase.fileSize(eg));
+        buf.putInt(Tablebase.MAGIC).putInt(eg.ordinal()).putInt(n).putInt(0);
+        int dtmStart = Tablebase.HEADER_BYTES + (n + 3) / 4;
+        for (int i = 0; i < n; i++) {
+            int wdl = state[i] >>> 8;
+            int at = Tablebase.HEADER_BYTES + (i >>> 2);
+            buf.put(at, (byte) (buf.get(at) | wdl << ((i & 3) * 2)));
+            buf.put(dtmStart + i, (byte) state[i]);
+        }
+        buf.position(0);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) out.write(buf);
+        }
+    }
+
+    /** Counts with White to move, and the longest mate. */
+    private static String summary(Endgame eg, short[] state) {
+        long win = 0, draw = 0, loss = 0;
+        int longest = 0;
+        for (int i = 0; i < eg.positionsPerSide; i++) {
+            int wdl = state[i] >>> 8;
+            if (wdl == Tablebase.WIN) {
+                win++;
+                longest = Math.max(longest, state[i] & 0xFF);
+            } else if (wdl == Tablebase.DRAW) {
+                draw++;
+            } else if (wdl == Tablebase.LOSS) {
+                loss++;
+            }
+        }
+        return String.format("White to move: %,d won, %,d drawn, %,d lost; longest mate %d moves",
+                win, draw, loss, (longest + 1) / 2);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : DEFAULT_DIRECTORY);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        generate(directory, threads);
+    }
+}
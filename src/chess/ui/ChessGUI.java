@@ -1,14 +1,21 @@
 package chess.ui;
 
+import chess.engine.OpeningBook;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
 import chess.model.*;
+import chess.tablebase.Tablebase;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.List;
 
 public class ChessGUI {
@@ -23,7 +30,44 @@ public class ChessGUI {
     private final JLabel statusLabel = new JLabel(" ");
     private final int squareSize = 80; // preferred pixel size of each square
 
+    // Square colors
+    private static final java.awt.Color LIGHT_SQUARE = new java.awt.Color(240, 217, 181);
+    private static final java.awt.Color DARK_SQUARE = new java.awt.Color(181, 136, 99);
+    private static final java.awt.Color LAST_MOVE = new java.awt.Color(166, 231, 161);
+    private static final java.awt.Color SELECTED = java.awt.Color.CYAN;
+    private static final java.awt.Color TARGET = java.awt.Color.YELLOW;
+
+    // Icon atlas: one icon per piece (color * 6 + type) at the current icon size, rebuilt on resize
+    private final ImageIcon[] icons = new ImageIcon[12];
+    private int iconSize = -1;
+
+    // What each button currently shows, so refresh() only touches squares that changed
+    private final Piece[] shownPiece = new Piece[64];
+    private final java.awt.Color[] shownBackground = new java.awt.Color[64];
+
+    // Computer opponent
+    private static final String[] ENGINE_CHOICES = {"Two players", "Engine plays Black", "Engine plays White"};
+    private static final long ENGINE_MOVE_MILLIS = 1000;
+    private final JComboBox<String> engineChoice = new JComboBox<>(ENGINE_CHOICES);
+    private final SearchService engine;
+    private final Timer thinkingTimer = new Timer(250, e -> updateStatus()); // live nodes/sec while searching
+    private String engineInfo = "";
+    private final OpeningBook book; // null when playing without a book
+    private final Tablebase tablebase; // null without endgame tables
+    private final java.util.Random bookRandom = new java.util.Random();
+
     public ChessGUI() {
+        this(null, null);
+    }
+
+    /**
+     * A GUI whose engine plays from {@code book} while the position is in it
+     * and takes exact endgame results from {@code tablebase}; either may be null.
+     */
+    public ChessGUI(OpeningBook book, Tablebase tablebase) {
+        this.book = book;
+        this.tablebase = tablebase;
+        this.engine = new SearchService(tablebase);
         frame = new JFrame("Simple Chess");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         initUI();
@@ -35,6 +79,12 @@ public class ChessGUI {
     private void initUI() {
         JPanel boardPanel = new JPanel(new GridLayout(8, 8));
         boardPanel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        boardPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                refresh();
+            }
+        });
 
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
@@ -61,6 +111,11 @@ public class ChessGUI {
             restartGame();
         });
         topSide.add(restart, BorderLayout.EAST);
+        engineChoice.addActionListener((ActionEvent e) -> {
+            cancelEngine();
+            SwingUtilities.invokeLater(this::maybeEngineMove);
+        });
+        topSide.add(engineChoice, BorderLayout.SOUTH);
         side.add(topSide, BorderLayout.NORTH);
 
         // root layout
@@ -92,29 +147,37 @@ public class ChessGUI {
     }
 
     private void restartGame() {
+        cancelEngine();
+        engine.close();
         selR = selC = -1;
         lastMove = null;
         historyArea.setText("");
         SwingUtilities.invokeLater(() -> {
             JFrame top = frame;
             top.dispose();
-            ChessGUI newGui = new ChessGUI();
+            ChessGUI newGui = new ChessGUI(book, tablebase);
             newGui.show();
         });
     }
 
     private void onSquareClicked(int r, int c) {
+        if (state.status().isGameOver()) return;
+        if (isEngineTurn()) {
+            // a click while the engine thinks tells it to play its best move so far
+            if (engine.isSearching()) engine.moveNow();
+            return;
+        }
         Piece p = state.board().get(r, c);
         if (selR == -1) {
             // select a piece
             if (p != null && p.color() == state.toMove()) {
                 selR = r;
                 selC = c;
-                highlightLegalMoves();
+                refresh();
             }
         } else {
             // attempt move
-            List<Move> moves = MoveGenerator.legalMovesForPiece(state.board(), selR, selC);
+            List<Move> moves = state.legalMovesFrom(selR, selC);
             Move chosen = null;
             for (Move m : moves) {
                 if (m.toRow == r && m.toCol == c) {
@@ -141,26 +204,7 @@ public class ChessGUI {
                 if (!ok) {
                     JOptionPane.showMessageDialog(frame, "Illegal move.");
                 } else {
-                    // move applied to model; update lastMove and history
-                    lastMove = chosen;
-                    appendHistory(chosen);
-
-                    // Refresh the UI immediately so the moved piece is visible.
-                    // Then show any blocking dialogs (checkmate/stalemate) after repaint completes.
-                    refresh();
-
-                    final chess.model.Color next = state.toMove();
-                    SwingUtilities.invokeLater(() -> {
-                        if (state.isCheckmate(next)) {
-                            JOptionPane.showMessageDialog(frame, "Checkmate! " + next.opposite() + " wins.");
-                        } else if (state.isStalemate(next)) {
-                            JOptionPane.showMessageDialog(frame, "Stalemate!");
-                        } else if (state.isInCheck(next)) {
-                            // Non-blocking status update already shown via updateStatus/refresh;
-                            // optional: show a small info dialog or flash status
-                            // JOptionPane.showMessageDialog(frame, next + " is in check.");
-                        }
-                    });
+                    afterMove(chosen);
                 }
             }
             selR = -1;
@@ -170,6 +214,90 @@ public class ChessGUI {
         }
     }
 
+    private void afterMove(Move move) {
+        // move applied to model; update lastMove and history
+        lastMove = move;
+        appendHistory(move);
+
+        // Refresh the UI immediately so the moved piece is visible.
+        // Then show any blocking dialogs (checkmate/stalemate) after repaint completes.
+        refresh();
+
+        final chess.model.Color next = state.toMove();
+        final GameState.Status status = state.status();
+        SwingUtilities.invokeLater(() -> {
+            if (status == GameState.Status.CHECKMATE) {
+                JOptionPane.showMessageDialog(frame, "Checkmate! " + next.opposite() + " wins.");
+            } else if (status == GameState.Status.STALEMATE) {
+                JOptionPane.showMessageDialog(frame, "Stalemate!");
+            } else if (status == GameState.Status.DRAW) {
+                JOptionPane.showMessageDialog(frame, "Draw: " + drawText(state.drawReason()) + ".");
+            } else if (status == GameState.Status.CHECK) {
+                // Non-blocking status update already shown via updateStatus/refresh;
+                // optional: show a small info dialog or flash status
+                // JOptionPane.showMessageDialog(frame, next + " is in check.");
+            }
+            maybeEngineMove();
+        });
+    }
+
+    private boolean isEngineTurn() {
+        int choice = engineChoice.getSelectedIndex();
+        if (choice == 0) return false;
+        chess.model.Color engineColor = choice == 1 ? chess.model.Color.BLACK : chess.model.Color.WHITE;
+        return state.toMove() == engineColor;
+    }
+
+    //LET THE ENGINE PLAY IF IT IS ITS TURN (searches in the background, moves when done)
+    private void maybeEngineMove() {
+        if (!isEngineTurn() || engine.isSearching()) return;
+        if (state.status().isGameOver()) return;
+        selR = selC = -1;
+        int bookMove = book == null ? 0 : book.randomMove(state.board(), bookRandom);
+        if (bookMove != 0) {
+            Move m = Move.decode(bookMove);
+            if (state.makeMove(m)) {
+                engineInfo = "Engine: book move";
+                afterMove(m);
+                return;
+            }
+        }
+        engineInfo = "Engine: thinking...";
+        engine.start(state.board(), SearchLimits.moveTime(ENGINE_MOVE_MILLIS),
+                info -> engineInfo = String.format("Engine: depth %d", info.depth),
+                this::onEngineResult);
+        thinkingTimer.start();
+        refresh();
+    }
+
+    private void onEngineResult(SearchResult result) {
+        thinkingTimer.stop();
+        if (result == null) {
+            engineInfo = "Engine: search failed";
+            updateStatus();
+            return;
+        }
+        engineInfo = String.format("Engine: depth %d, %,d nodes/s", result.depth, result.nodesPerSecond());
+        if (result.bestMove != null && isEngineTurn() && state.makeMove(result.bestMove)) {
+            afterMove(result.bestMove);
+        } else {
+            updateStatus();
+        }
+    }
+
+    private void cancelEngine() {
+        engine.cancel();
+        thinkingTimer.stop();
+    }
+
+    private static String drawText(GameState.DrawReason reason) {
+        switch (reason) {
+            case THREEFOLD_REPETITION: return "threefold repetition";
+            case FIFTY_MOVE_RULE: return "fifty-move rule";
+            default: return "insufficient material";
+        }
+    }
+
     private void appendHistory(Move m) {
         String line = String.format("%d. %s\n", state.history().size(), m.toString());
         historyArea.append(line);
@@ -179,56 +307,79 @@ public class ChessGUI {
     private void updateStatus() {
         chess.model.Color toMove = state.toMove();
         String text = toMove + " to move";
-        if (state.isInCheck(toMove)) text += " (in check)";
-        statusLabel.setText(text);
-    }
-
-    private void highlightLegalMoves() {
-        refresh();
-        if (selR == -1) return;
-        List<Move> moves = MoveGenerator.legalMovesForPiece(state.board(), selR, selC);
-        for (Move m : moves) {
-            squares[m.toRow][m.toCol].setBackground(java.awt.Color.YELLOW);
+        if (state.status() == GameState.Status.CHECK) text += " (in check)";
+        if (state.status() == GameState.Status.DRAW) text = "Draw: " + drawText(state.drawReason());
+        if (engine.isSearching()) text += String.format(" \u2014 thinking, %,d nodes/s", engine.nodesPerSecond());
+        String details = engineInfo;
+        int tb = tablebase == null ? Tablebase.NOT_FOUND : tablebase.probe(state.board());
+        if (tb != Tablebase.NOT_FOUND) {
+            details += (details.isEmpty() ? "" : "<br>") + "Tablebase: " + Tablebase.describe(tb, toMove);
         }
-        squares[selR][selC].setBackground(java.awt.Color.CYAN);
+        if (!details.isEmpty()) text = "<html>" + text + "<br>" + details + "</html>";
+        statusLabel.setText(text);
     }
 
+    /**
+     * Brings the buttons in line with the game: square colors (last move, the
+     * selected piece and its targets) and piece icons. Only squares whose piece
+     * or color differs from what they already show are updated.
+     */
     private void refresh() {
         Board b = state.board();
-        // First color squares and reset icons/text
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                JButton btn = squares[r][c];
-                Piece p = b.get(r, c);
-                // base square color
-                boolean dark = (r + c) % 2 == 1;
-                java.awt.Color lightSq = new java.awt.Color(240, 217, 181);
-                java.awt.Color darkSq = new java.awt.Color(181, 136, 99);
-                btn.setBackground(dark ? darkSq : lightSq);
-                btn.setIcon(null);
-                btn.setText("");
-            }
-        }
+        updateIconSize();
 
-        // highlight last move
-        if (lastMove != null) {
-            squares[lastMove.fromRow][lastMove.fromCol].setBackground(new java.awt.Color(166, 231, 161));
-            squares[lastMove.toRow][lastMove.toCol].setBackground(new java.awt.Color(166, 231, 161));
+        long targets = 0;
+        if (selR != -1) {
+            for (Move m : state.legalMovesFrom(selR, selC)) targets |= 1L << Board.square(m.toRow, m.toCol);
         }
 
-        // draw pieces
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
+                int sq = Board.square(r, c);
                 JButton btn = squares[r][c];
-                Piece p = b.get(r, c);
-                if (p != null) {
-                    btn.setIcon(createPieceIcon(p, squareSize - 12));
+
+                java.awt.Color background;
+                if (r == selR && c == selC) {
+                    background = SELECTED;
+                } else if ((targets & (1L << sq)) != 0) {
+                    background = TARGET;
+                } else if (lastMove != null && ((r == lastMove.fromRow && c == lastMove.fromCol)
+                        || (r == lastMove.toRow && c == lastMove.toCol))) {
+                    background = LAST_MOVE;
+                } else {
+                    background = (r + c) % 2 == 1 ? DARK_SQUARE : LIGHT_SQUARE;
+                }
+                if (shownBackground[sq] != background) {
+                    btn.setBackground(background);
+                    shownBackground[sq] = background;
+                }
+
+                Piece p = b.get(sq);
+                if (shownPiece[sq] != p) {
+                    btn.setIcon(p == null ? null : iconFor(p));
+                    shownPiece[sq] = p;
                 }
             }
         }
 
         updateStatus();
-        frame.repaint();
+    }
+
+    // Rebuilds the icon atlas when the squares have been resized.
+    private void updateIconSize() {
+        JButton btn = squares[0][0];
+        int side = Math.min(btn.getWidth(), btn.getHeight());
+        int size = side > 0 ? Math.max(16, side - 12) : squareSize - 12;
+        if (size == iconSize) return;
+        iconSize = size;
+        Arrays.fill(icons, null);
+        Arrays.fill(shownPiece, null); // every piece gets its icon again
+    }
+
+    private ImageIcon iconFor(Piece p) {
+        int i = p.color().ordinal() * 6 + p.type().ordinal();
+        if (icons[i] == null) icons[i] = createPieceIcon(p, iconSize);
+        return icons[i];
     }
 
     private ImageIcon createPieceIcon(Piece p, int size) {
@@ -0,0 +1,115 @@
+package chess.ui;
+
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.model.Board;
+import chess.tablebase.Tablebase;
+
+import javax.swing.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs engine searches for the GUI on a dedicated background thread, so the
+ * event dispatch thread never blocks. Iterations and the final result are
+ * handed back on the EDT with {@link SwingUtilities#invokeLater}. Starting a new
+ * search or calling {@link #cancel()} stops the running one at its next node
+ * check and drops anything it still publishes. Each request gets its own
+ * {@link Search} (sharing one transposition table), so stopping an old search
+ * can never be undone by a newer one, or stop the newer one.
+ *
+ * All methods are meant to be called from the EDT.
+ */
+class SearchService implements AutoCloseable {
+    private final TranspositionTable tt = new TranspositionTable(Search.DEFAULT_HASH_MB);
+    private final Tablebase tablebase;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "gui-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Ticket current;
+
+    SearchService(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    // One submitted search; cancelled ones never reach their callbacks.
+    private static final class Ticket {
+        final Search search;
+        volatile boolean cancelled;
+        volatile long startNanos; // 0 until the worker gets to it
+
+        Ticket(Search search) {
+            this.search = search;
+        }
+    }
+
+    /**
+     * Searches a copy of {@code position}. {@code onIteration} receives each
+     * completed iteration and {@code onDone} the result, or {@code null} if the
+     * search failed; neither is called once the search has been cancelled.
+     */
+    void start(Board position, SearchLimits limits,
+               Consumer<SearchResult> onIteration, Consumer<SearchResult> onDone) {
+        cancel();
+        Search search = new Search(tt);
+        search.setTablebase(tablebase);
+        Ticket ticket = new Ticket(search);
+        current = ticket;
+        Board copy = position.clone(); // the GUI keeps playing on the original
+        executor.execute(() -> {
+            if (ticket.cancelled) return;
+            ticket.startNanos = System.nanoTime();
+            SearchResult result = null;
+            try {
+                search.setListener(info -> publish(ticket, onIteration, info, false));
+                result = search.search(copy, limits);
+            } finally {
+                publish(ticket, onDone, result, true);
+            }
+        });
+    }
+
+    private void publish(Ticket ticket, Consumer<SearchResult> callback, SearchResult value, boolean last) {
+        SwingUtilities.invokeLater(() -> {
+            if (ticket.cancelled) return;
+            if (last) current = null;
+            callback.accept(value);
+        });
+    }
+
+    /** Stops the running search, if any; its callbacks will not be called. */
+    void cancel() {
+        if (current == null) return;
+        current.cancelled = true;
+        current.search.stop();
+        current = null;
+    }
+
+    /** Stops the running search early but still delivers its best move so far. */
+    void moveNow() {
+        if (current != null) current.search.stop();
+    }
+
+    boolean isSearching() {
+        return current != null;
+    }
+
+    /** Nodes per second of the running search so far, for a live readout. */
+    long nodesPerSecond() {
+        Ticket ticket = current;
+        if (ticket == null || ticket.startNanos == 0) return 0;
+        long elapsed = System.nanoTime() - ticket.startNanos;
+        return elapsed <= 0 ? 0 : ticket.search.nodes() * 1_000_000_000L / elapsed;
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+}